@@ -20,6 +20,8 @@ package de.ellpeck.rockbottom.api;
 
 import de.ellpeck.rockbottom.api.assets.IAssetManager;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.DataSetFormat;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
 import de.ellpeck.rockbottom.api.data.set.part.DataPart;
 import de.ellpeck.rockbottom.api.entity.Entity;
 import de.ellpeck.rockbottom.api.gui.component.ComponentSlot;
@@ -28,6 +30,7 @@ import de.ellpeck.rockbottom.api.world.IWorld;
 import org.newdawn.slick.Color;
 import org.newdawn.slick.Graphics;
 import org.newdawn.slick.Image;
+import org.newdawn.slick.util.Log;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -42,19 +45,62 @@ public interface IApiHandler{
 
     /**
      * Writes the specified {@link DataSet} to the specified {@link File}
+     * using {@link DataSetFormat#DEFAULT_CODEC}
      *
      * @param set  The set
      * @param file The file
      */
-    void writeDataSet(DataSet set, File file);
+    default void writeDataSet(DataSet set, File file){
+        this.writeDataSet(set, file, DataSetFormat.DEFAULT_CODEC);
+    }
+
+    /**
+     * Writes the specified {@link DataSet} to the specified {@link File}
+     * using the {@link DataSetFormat}, compressing it with the specified {@link IDataCodec}
+     * <br> The codec is detected automatically when reading the file
+     *
+     * @param set   The set
+     * @param file  The file
+     * @param codec The codec
+     */
+    default void writeDataSet(DataSet set, File file, IDataCodec codec){
+        try{
+            DataSetFormat.write(set, file, codec);
+        }
+        catch(Exception e){
+            Log.error("Exception saving a data set to disk!", e);
+        }
+    }
+
+    /**
+     * Reads the specified {@link DataSet} from the specified {@link File}
+     *
+     * @param set  The set
+     * @param file The file
+     */
+    default void readDataSet(DataSet set, File file){
+        this.readDataSet(set, file, false);
+    }
 
     /**
      * Reads the specified {@link DataSet} from the specified {@link File}
+     * using the {@link DataSetFormat}
+     * <br> When reading lazily, nested {@link DataSet}s are only decoded
+     * once they are accessed, which is useful if only a few keys of a
+     * large file are needed
      *
      * @param set  The set
      * @param file The file
+     * @param lazy If nested sets should be decoded lazily
      */
-    void readDataSet(DataSet set, File file);
+    default void readDataSet(DataSet set, File file, boolean lazy){
+        try{
+            DataSetFormat.read(set, file, lazy);
+        }
+        catch(Exception e){
+            Log.error("Exception loading a data set from disk!", e);
+        }
+    }
 
     /**
      * Writes the specified {@link DataSet} to the specified {@link DataOutput}
@@ -21,6 +21,7 @@ package de.ellpeck.rockbottom.api;
 import de.ellpeck.rockbottom.api.construction.BasicRecipe;
 import de.ellpeck.rockbottom.api.construction.SeparatorRecipe;
 import de.ellpeck.rockbottom.api.construction.SmelterRecipe;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
 import de.ellpeck.rockbottom.api.data.set.part.DataPart;
 import de.ellpeck.rockbottom.api.entity.Entity;
 import de.ellpeck.rockbottom.api.event.IEventHandler;
@@ -35,6 +36,7 @@ import de.ellpeck.rockbottom.api.tile.Tile;
 import de.ellpeck.rockbottom.api.util.reg.IResourceName;
 import de.ellpeck.rockbottom.api.util.reg.IndexRegistry;
 import de.ellpeck.rockbottom.api.util.reg.NameRegistry;
+import de.ellpeck.rockbottom.api.util.reg.ResourceNamePool;
 import de.ellpeck.rockbottom.api.world.gen.IWorldGenerator;
 import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
 
@@ -112,6 +114,16 @@ public final class RockBottomAPI{
      * <br> Use this to register custom biomes
      */
     public static final NameRegistry<Biome> BIOME_REGISTRY = new NameRegistry<>("biome_registry");
+    /**
+     * The registry for {@link IDataCodec}s that {@link de.ellpeck.rockbottom.api.data.set.DataSet} files can be compressed with
+     * <br> The id is saved in every file, so use {@link IndexRegistry#getNextFreeId()} to register a custom codec once and keep it stable
+     */
+    public static final IndexRegistry<IDataCodec> DATA_CODEC_REGISTRY = new IndexRegistry<>("data_codec_registry", Byte.MAX_VALUE);
+
+    static{
+        DATA_CODEC_REGISTRY.register(0, IDataCodec.NONE);
+        DATA_CODEC_REGISTRY.register(1, IDataCodec.DEFLATE);
+    }
 
     private static IApiHandler apiHandler;
     private static INetHandler netHandler;
@@ -176,25 +188,27 @@ public final class RockBottomAPI{
 
     /**
      * Creates an {@link IResourceName} to be used by the specified {@link IMod}
+     * <br> The name is cached in the {@link ResourceNamePool}
      *
      * @param mod      The mod to use this resource name
      * @param resource The name of the resource to create
      * @return The {@link IResourceName}
      */
     public static IResourceName createRes(IMod mod, String resource){
-        return modLoader.createResourceName(mod, resource);
+        return ResourceNamePool.get(mod, resource);
     }
 
     /**
      * Creates an {@link IResourceName} out of a combined string of the mod id
      * and the resource itself
+     * <br> The name is cached in the {@link ResourceNamePool}
      *
      * @param combined The combined name
      * @return The parsed {@link IResourceName}
      * @throws IllegalArgumentException if the specified string cannot be parsed as an {@link IResourceName}
      */
     public static IResourceName createRes(String combined){
-        return modLoader.createResourceName(combined);
+        return ResourceNamePool.get(combined);
     }
 
     /**
@@ -242,6 +256,20 @@ public final class RockBottomAPI{
         }
     }
 
+    /**
+     * Freezes all of the registries that map ids or names to values, see {@link de.ellpeck.rockbottom.api.util.reg.IRegistry#freeze()}
+     * <br> For game internal use only, after all mods have been initialized
+     */
+    public static void freezeRegistries(){
+        TILE_REGISTRY.freeze();
+        ITEM_REGISTRY.freeze();
+        ENTITY_REGISTRY.freeze();
+        PART_REGISTRY.freeze();
+        PACKET_REGISTRY.freeze();
+        BIOME_REGISTRY.freeze();
+        DATA_CODEC_REGISTRY.freeze();
+    }
+
     public static int getFuelValue(ItemInstance instance){
         for(Map.Entry<ItemInstance, Integer> entry : FUEL_REGISTRY.entrySet()){
             if(instance.isEffectivelyEqualWithWildcard(entry.getKey())){
@@ -15,40 +15,110 @@
  * You should have received a copy of the GNU Lesser General Public License
  * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
  */
-
 package de.ellpeck.rockbottom.api.data.set;
 
 import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
 import de.ellpeck.rockbottom.api.data.set.part.*;
 import de.ellpeck.rockbottom.api.data.set.part.num.*;
-import de.ellpeck.rockbottom.api.data.set.part.num.array.PartByteByteArray;
-import de.ellpeck.rockbottom.api.data.set.part.num.array.PartIntArray;
-import de.ellpeck.rockbottom.api.data.set.part.num.array.PartShortShortArray;
+import de.ellpeck.rockbottom.api.data.set.part.num.array.*;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-
+import java.util.*;
+
+/**
+ * A set of named {@link DataPart}s that is used for saving things to disk
+ * and sending them over the network
+ * <br> Primitive values are stored unboxed in an open-addressed table, so
+ * adding or getting them does not allocate. {@link DataPart} objects for them
+ * are only created when they are requested through {@link #getData()}
+ * <br> Copies made with {@link #copy()} share their contents with the original
+ * set until either of them is modified, see there for details
+ * <br> The hash code of a set is cached as long as neither the set nor any of
+ * its nested sets change and it contains no mutable parts like arrays
+ */
 public class DataSet{
 
-    public final Map<String, DataPart> data = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    static final byte TYPE_EMPTY = 0;
+    static final byte TYPE_PART = 1;
+    static final byte TYPE_INT = 2;
+    static final byte TYPE_LONG = 3;
+    static final byte TYPE_FLOAT = 4;
+    static final byte TYPE_DOUBLE = 5;
+    static final byte TYPE_BYTE = 6;
+    static final byte TYPE_SHORT = 7;
+    static final byte TYPE_BOOLEAN = 8;
+
+    /**
+     * A live view of the parts in this set
+     * <br> Prefer the typed getters and setters, as iterating this view
+     * creates {@link DataPart} objects for primitive values
+     */
+    public final Map<String, DataPart> data = new PartMap();
+
+    private String[] keys;
+    private byte[] types;
+    private long[] values;
+    private DataPart[] parts;
+    private int size;
+
+    private boolean shared;
+    //The amount of nested sets in the table, so that copying a set without any doesn't need to look for them
+    private int nestedSets;
+
+    private int modCount;
+    private boolean hashCached;
+    private int hashModCount;
+    private int hash;
+    private DataSet[] hashedSets;
+    private int[] hashedSetHashes;
 
     public void addPart(DataPart part){
-        this.data.put(part.getName(), part);
+        byte type = getPrimitiveType(part.getClass());
+        Object content = type != TYPE_PART ? part.get() : null;
+        if(content == null){
+            type = TYPE_PART;
+        }
+
+        long value;
+        switch(type){
+            case TYPE_PART:
+                value = 0L;
+                break;
+            case TYPE_FLOAT:
+                value = Float.floatToRawIntBits((Float)content);
+                break;
+            case TYPE_DOUBLE:
+                value = Double.doubleToRawLongBits((Double)content);
+                break;
+            case TYPE_BOOLEAN:
+                value = (Boolean)content ? 1L : 0L;
+                break;
+            default:
+                value = ((Number)content).longValue();
+                break;
+        }
+
+        this.putPrimitive(part.getName(), type, value, part);
     }
 
     public boolean hasKey(String key){
-        return this.data.containsKey(key);
+        return this.indexOf(key) >= 0;
     }
 
     public <T> T getPartContent(String key, Class<? extends DataPart<T>> typeClass, T defaultValue){
-        DataPart part = this.data.get(key);
+        int index = this.indexOf(key);
+
+        if(index >= 0){
+            DataPart part = this.partAt(index);
 
-        if(part != null && part.getClass() == typeClass){
-            T result = (T)part.get();
-            if(result != null){
-                return result;
+            if(part.getClass() == typeClass){
+                T result = (T)part.get();
+                if(result != null){
+                    return result;
+                }
             }
         }
 
@@ -56,35 +126,35 @@ public class DataSet{
     }
 
     public int getInt(String key){
-        return this.getPartContent(key, PartInt.class, 0);
+        return (int)this.getPrimitive(key, TYPE_INT);
     }
 
     public void addInt(String key, int i){
-        this.addPart(new PartInt(key, i));
+        this.putPrimitive(key, TYPE_INT, i, null);
     }
 
     public long getLong(String key){
-        return this.getPartContent(key, PartLong.class, 0L);
+        return this.getPrimitive(key, TYPE_LONG);
     }
 
     public void addLong(String key, long l){
-        this.addPart(new PartLong(key, l));
+        this.putPrimitive(key, TYPE_LONG, l, null);
     }
 
     public float getFloat(String key){
-        return this.getPartContent(key, PartFloat.class, 0F);
+        return Float.intBitsToFloat((int)this.getPrimitive(key, TYPE_FLOAT));
     }
 
     public void addFloat(String key, float f){
-        this.addPart(new PartFloat(key, f));
+        this.putPrimitive(key, TYPE_FLOAT, Float.floatToRawIntBits(f), null);
     }
 
     public double getDouble(String key){
-        return this.getPartContent(key, PartDouble.class, 0D);
+        return Double.longBitsToDouble(this.getPrimitive(key, TYPE_DOUBLE));
     }
 
     public void addDouble(String key, double d){
-        this.addPart(new PartDouble(key, d));
+        this.putPrimitive(key, TYPE_DOUBLE, Double.doubleToRawLongBits(d), null);
     }
 
     public DataSet getDataSet(String key){
@@ -119,6 +189,110 @@ public class DataSet{
         this.addPart(new PartShortShortArray(key, array));
     }
 
+    /**
+     * Gets the flat grid with the specified key
+     * <br> The returned array is the one backing the part, so it is not copied.
+     * If the key holds a {@link PartShortShortArray} of the same size, it is
+     * converted so that sets saved before grids existed can still be read
+     *
+     * @param key    The key
+     * @param width  The width of the grid
+     * @param height The height of the grid
+     * @return The grid, or an empty grid if there is none of the specified size
+     */
+    public short[] getShortGrid(String key, int width, int height){
+        DataPart part = this.data.get(key);
+
+        if(part != null && part.get() != null){
+            if(part.getClass() == PartShortGrid.class){
+                PartShortGrid grid = (PartShortGrid)part;
+                if(grid.getWidth() == width && grid.getHeight() == height){
+                    return grid.get();
+                }
+            }
+            else if(part.getClass() == PartShortShortArray.class){
+                short[][] array = ((PartShortShortArray)part).get();
+                if(array.length == width){
+                    short[] grid = new short[width*height];
+                    for(int x = 0; x < width; x++){
+                        if(array[x].length != height){
+                            return new short[width*height];
+                        }
+                        System.arraycopy(array[x], 0, grid, x*height, height);
+                    }
+                    return grid;
+                }
+            }
+        }
+
+        return new short[width*height];
+    }
+
+    /**
+     * Adds a flat grid with the specified key
+     * <br> The grid is copied, so the specified array can still be modified afterwards
+     *
+     * @param key    The key
+     * @param grid   The grid, with the value at {@code x}, {@code y} at index {@code x*height+y}
+     * @param width  The width of the grid
+     * @param height The height of the grid
+     */
+    public void addShortGrid(String key, short[] grid, int width, int height){
+        this.addPart(new PartShortGrid(key, grid.clone(), width, height));
+    }
+
+    /**
+     * Gets the flat grid with the specified key
+     * <br> The returned array is the one backing the part, so it is not copied.
+     * If the key holds a {@link PartByteByteArray} of the same size, it is
+     * converted so that sets saved before grids existed can still be read
+     *
+     * @param key    The key
+     * @param width  The width of the grid
+     * @param height The height of the grid
+     * @return The grid, or an empty grid if there is none of the specified size
+     */
+    public byte[] getByteGrid(String key, int width, int height){
+        DataPart part = this.data.get(key);
+
+        if(part != null && part.get() != null){
+            if(part.getClass() == PartByteGrid.class){
+                PartByteGrid grid = (PartByteGrid)part;
+                if(grid.getWidth() == width && grid.getHeight() == height){
+                    return grid.get();
+                }
+            }
+            else if(part.getClass() == PartByteByteArray.class){
+                byte[][] array = ((PartByteByteArray)part).get();
+                if(array.length == width){
+                    byte[] grid = new byte[width*height];
+                    for(int x = 0; x < width; x++){
+                        if(array[x].length != height){
+                            return new byte[width*height];
+                        }
+                        System.arraycopy(array[x], 0, grid, x*height, height);
+                    }
+                    return grid;
+                }
+            }
+        }
+
+        return new byte[width*height];
+    }
+
+    /**
+     * Adds a flat grid with the specified key
+     * <br> The grid is copied, so the specified array can still be modified afterwards
+     *
+     * @param key    The key
+     * @param grid   The grid, with the value at {@code x}, {@code y} at index {@code x*height+y}
+     * @param width  The width of the grid
+     * @param height The height of the grid
+     */
+    public void addByteGrid(String key, byte[] grid, int width, int height){
+        this.addPart(new PartByteGrid(key, grid.clone(), width, height));
+    }
+
     public UUID getUniqueId(String key){
         return this.getPartContent(key, PartUniqueId.class, null);
     }
@@ -128,27 +302,27 @@ public class DataSet{
     }
 
     public byte getByte(String key){
-        return this.getPartContent(key, PartByte.class, (byte)0);
+        return (byte)this.getPrimitive(key, TYPE_BYTE);
     }
 
     public void addByte(String key, byte b){
-        this.addPart(new PartByte(key, b));
+        this.putPrimitive(key, TYPE_BYTE, b, null);
     }
 
     public short getShort(String key){
-        return this.getPartContent(key, PartShort.class, (short)0);
+        return (short)this.getPrimitive(key, TYPE_SHORT);
     }
 
     public void addShort(String key, short s){
-        this.addPart(new PartShort(key, s));
+        this.putPrimitive(key, TYPE_SHORT, s, null);
     }
 
     public boolean getBoolean(String key){
-        return this.getPartContent(key, PartBoolean.class, false);
+        return this.getPrimitive(key, TYPE_BOOLEAN) != 0L;
     }
 
     public void addBoolean(String key, boolean s){
-        this.addPart(new PartBoolean(key, s));
+        this.putPrimitive(key, TYPE_BOOLEAN, s ? 1L : 0L, null);
     }
 
     public String getString(String key){
@@ -163,10 +337,18 @@ public class DataSet{
         RockBottomAPI.getApiHandler().writeDataSet(this, file);
     }
 
+    public void write(File file, IDataCodec codec){
+        RockBottomAPI.getApiHandler().writeDataSet(this, file, codec);
+    }
+
     public void read(File file){
         RockBottomAPI.getApiHandler().readDataSet(this, file);
     }
 
+    public void read(File file, boolean lazy){
+        RockBottomAPI.getApiHandler().readDataSet(this, file, lazy);
+    }
+
     @Override
     public String toString(){
         return this.data.toString();
@@ -177,7 +359,11 @@ public class DataSet{
     }
 
     public boolean isEmpty(){
-        return this.data.isEmpty();
+        return this.size <= 0;
+    }
+
+    public int size(){
+        return this.size;
     }
 
     @Override
@@ -190,17 +376,534 @@ public class DataSet{
         }
 
         DataSet dataSet = (DataSet)o;
-        return this.data.equals(dataSet.data);
+        if(this.size != dataSet.size){
+            return false;
+        }
+        //Copies share their table until one of them is modified, unless they contain nested sets
+        if(this.keys == dataSet.keys && this.parts == dataSet.parts){
+            return true;
+        }
+        if(this.hashCode() != dataSet.hashCode()){
+            return false;
+        }
+
+        for(int i = 0; i < this.capacity(); i++){
+            if(this.types[i] != TYPE_EMPTY){
+                int other = dataSet.indexOf(this.keys[i]);
+                if(other < 0 || this.types[i] != dataSet.types[other]){
+                    return false;
+                }
+
+                if(this.types[i] == TYPE_PART){
+                    if(!this.parts[i].equals(dataSet.parts[other])){
+                        return false;
+                    }
+                }
+                else if(this.values[i] != dataSet.values[other]){
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode(){
-        return this.data.hashCode();
+        if(this.isHashCached()){
+            return this.hash;
+        }
+
+        int result = 0;
+        boolean cacheable = true;
+        List<DataSet> nestedSets = null;
+
+        for(int i = 0; i < this.capacity(); i++){
+            if(this.types[i] != TYPE_EMPTY){
+                int valueHash;
+                if(this.types[i] == TYPE_PART){
+                    DataPart part = this.parts[i];
+                    valueHash = part.hashCode();
+
+                    Class<? extends DataPart> partClass = part.getClass();
+                    if(partClass == PartDataSet.class){
+                        DataSet nested = ((PartDataSet)part).get();
+                        if(nested != null){
+                            if(nestedSets == null){
+                                nestedSets = new ArrayList<>();
+                            }
+                            nestedSets.add(nested);
+                        }
+                    }
+                    else if(partClass != PartString.class && partClass != PartUniqueId.class){
+                        cacheable = false;
+                    }
+                }
+                else{
+                    valueHash = Long.hashCode(this.values[i]);
+                }
+                result += this.keys[i].hashCode()^valueHash;
+            }
+        }
+
+        if(cacheable){
+            this.hash = result;
+            this.hashModCount = this.modCount;
+            this.hashCached = true;
+
+            if(nestedSets != null){
+                this.hashedSets = nestedSets.toArray(new DataSet[nestedSets.size()]);
+                this.hashedSetHashes = new int[this.hashedSets.length];
+                for(int i = 0; i < this.hashedSets.length; i++){
+                    this.hashedSetHashes[i] = this.hashedSets[i].hashCode();
+                }
+            }
+            else{
+                this.hashedSets = null;
+                this.hashedSetHashes = null;
+            }
+        }
+        return result;
     }
 
+    private boolean isHashCached(){
+        if(!this.hashCached || this.hashModCount != this.modCount){
+            return false;
+        }
+
+        //Nested sets can be modified without this set knowing about it
+        if(this.hashedSets != null){
+            for(int i = 0; i < this.hashedSets.length; i++){
+                if(this.hashedSets[i].hashCode() != this.hashedSetHashes[i]){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a copy of this set without copying its contents
+     * <br> The copy and this set share their table until either of them is
+     * modified, at which point the modified one copies it. Nested sets are
+     * copied the same way right away, so modifying a nested set of either
+     * set, even one that was taken out before copying, never affects the other.
+     * <br> Copying a set that contains no nested sets takes constant time. If
+     * it does contain some, copying takes one pass over its table plus a copy of
+     * every nested set at any depth, while reading from either set afterwards
+     * never copies anything.
+     * <br> Other mutable part contents like arrays are still shared.
+     *
+     * @return The copy
+     */
     public DataSet copy(){
         DataSet set = new DataSet();
-        set.data.putAll(this.data);
+        if(this.keys != null){
+            this.shared = true;
+
+            set.keys = this.keys;
+            set.types = this.types;
+            set.values = this.values;
+            set.parts = this.parts;
+            set.size = this.size;
+            set.shared = true;
+            set.nestedSets = this.nestedSets;
+
+            if(this.nestedSets > 0){
+                set.parts = this.parts.clone();
+
+                int found = 0;
+                for(int i = 0; found < this.nestedSets; i++){
+                    if(isNestedSet(this.parts[i])){
+                        set.parts[i] = ((PartDataSet)this.parts[i]).copy();
+                        found++;
+                    }
+                }
+            }
+            //The cached hash refers to this set's nested sets, so the copy only takes it if there are none
+            else if(this.isHashCached()){
+                set.hash = this.hash;
+                set.hashCached = true;
+            }
+        }
         return set;
     }
+
+    int capacity(){
+        return this.keys == null ? 0 : this.keys.length;
+    }
+
+    static byte getPrimitiveType(Class<? extends DataPart> partClass){
+        if(partClass == PartInt.class){
+            return TYPE_INT;
+        }
+        else if(partClass == PartLong.class){
+            return TYPE_LONG;
+        }
+        else if(partClass == PartFloat.class){
+            return TYPE_FLOAT;
+        }
+        else if(partClass == PartDouble.class){
+            return TYPE_DOUBLE;
+        }
+        else if(partClass == PartByte.class){
+            return TYPE_BYTE;
+        }
+        else if(partClass == PartShort.class){
+            return TYPE_SHORT;
+        }
+        else if(partClass == PartBoolean.class){
+            return TYPE_BOOLEAN;
+        }
+        else{
+            return TYPE_PART;
+        }
+    }
+
+    static Class<? extends DataPart> getPrimitiveClass(byte type){
+        switch(type){
+            case TYPE_INT:
+                return PartInt.class;
+            case TYPE_LONG:
+                return PartLong.class;
+            case TYPE_FLOAT:
+                return PartFloat.class;
+            case TYPE_DOUBLE:
+                return PartDouble.class;
+            case TYPE_BYTE:
+                return PartByte.class;
+            case TYPE_SHORT:
+                return PartShort.class;
+            default:
+                return PartBoolean.class;
+        }
+    }
+
+    String keyAt(int index){
+        return this.keys[index];
+    }
+
+    byte typeAt(int index){
+        return this.types[index];
+    }
+
+    long valueAt(int index){
+        return this.values[index];
+    }
+
+    private static int slot(String key, int mask){
+        int hash = key.hashCode();
+        return (hash^(hash >>> 16))&mask;
+    }
+
+    int indexOf(String key){
+        if(this.keys != null){
+            int mask = this.keys.length-1;
+            for(int i = slot(key, mask); this.types[i] != TYPE_EMPTY; i = (i+1)&mask){
+                if(key.equals(this.keys[i])){
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private long getPrimitive(String key, byte type){
+        int index = this.indexOf(key);
+        if(index >= 0 && this.types[index] == type){
+            return this.values[index];
+        }
+        else{
+            return 0L;
+        }
+    }
+
+    void putPrimitive(String key, byte type, long value, DataPart part){
+        if(this.keys == null){
+            this.allocate(INITIAL_CAPACITY);
+        }
+        else if((this.size+1)*4 > this.keys.length*3){
+            this.rehash(this.keys.length*2);
+        }
+        else{
+            this.ensureOwned();
+        }
+
+        int mask = this.keys.length-1;
+        int i = slot(key, mask);
+        while(this.types[i] != TYPE_EMPTY){
+            if(key.equals(this.keys[i])){
+                break;
+            }
+            i = (i+1)&mask;
+        }
+
+        if(this.types[i] == TYPE_EMPTY){
+            this.keys[i] = key;
+            this.size++;
+        }
+        else if(isNestedSet(this.parts[i])){
+            this.nestedSets--;
+        }
+        if(isNestedSet(part)){
+            this.nestedSets++;
+        }
+        this.types[i] = type;
+        this.values[i] = value;
+        this.parts[i] = part;
+        this.modCount++;
+    }
+
+    DataPart partAt(int index){
+        DataPart part = this.parts[index];
+        if(part == null){
+            String key = this.keys[index];
+            long value = this.values[index];
+
+            switch(this.types[index]){
+                case TYPE_INT:
+                    part = new PartInt(key, (int)value);
+                    break;
+                case TYPE_LONG:
+                    part = new PartLong(key, value);
+                    break;
+                case TYPE_FLOAT:
+                    part = new PartFloat(key, Float.intBitsToFloat((int)value));
+                    break;
+                case TYPE_DOUBLE:
+                    part = new PartDouble(key, Double.longBitsToDouble(value));
+                    break;
+                case TYPE_BYTE:
+                    part = new PartByte(key, (byte)value);
+                    break;
+                case TYPE_SHORT:
+                    part = new PartShort(key, (short)value);
+                    break;
+                default:
+                    part = new PartBoolean(key, value != 0L);
+                    break;
+            }
+
+            this.parts[index] = part;
+        }
+        return part;
+    }
+
+    private void ensureOwned(){
+        if(this.shared){
+            this.keys = this.keys.clone();
+            this.types = this.types.clone();
+            this.values = this.values.clone();
+            this.parts = this.parts.clone();
+            this.shared = false;
+        }
+    }
+
+    private void remove(int index){
+        this.ensureOwned();
+
+        if(isNestedSet(this.parts[index])){
+            this.nestedSets--;
+        }
+
+        int mask = this.keys.length-1;
+
+        //Shift following entries back so that no probe sequence is broken
+        int hole = index;
+        int i = (index+1)&mask;
+        while(this.types[i] != TYPE_EMPTY){
+            int home = slot(this.keys[i], mask);
+            if(((i-home)&mask) >= ((i-hole)&mask)){
+                this.keys[hole] = this.keys[i];
+                this.types[hole] = this.types[i];
+                this.values[hole] = this.values[i];
+                this.parts[hole] = this.parts[i];
+                hole = i;
+            }
+            i = (i+1)&mask;
+        }
+
+        this.keys[hole] = null;
+        this.types[hole] = TYPE_EMPTY;
+        this.values[hole] = 0L;
+        this.parts[hole] = null;
+        this.size--;
+        this.modCount++;
+    }
+
+    private static boolean isNestedSet(DataPart part){
+        return part != null && part.getClass() == PartDataSet.class;
+    }
+
+    private void allocate(int capacity){
+        this.keys = new String[capacity];
+        this.types = new byte[capacity];
+        this.values = new long[capacity];
+        this.parts = new DataPart[capacity];
+        this.shared = false;
+    }
+
+    private void rehash(int capacity){
+        String[] oldKeys = this.keys;
+        byte[] oldTypes = this.types;
+        long[] oldValues = this.values;
+        DataPart[] oldParts = this.parts;
+
+        this.allocate(capacity);
+
+        int mask = capacity-1;
+        for(int j = 0; j < oldKeys.length; j++){
+            if(oldTypes[j] != TYPE_EMPTY){
+                int i = slot(oldKeys[j], mask);
+                while(this.types[i] != TYPE_EMPTY){
+                    i = (i+1)&mask;
+                }
+
+                this.keys[i] = oldKeys[j];
+                this.types[i] = oldTypes[j];
+                this.values[i] = oldValues[j];
+                this.parts[i] = oldParts[j];
+            }
+        }
+    }
+
+    private class PartMap extends AbstractMap<String, DataPart>{
+
+        private final Set<Entry<String, DataPart>> entries = new AbstractSet<Entry<String, DataPart>>(){
+            @Override
+            public Iterator<Entry<String, DataPart>> iterator(){
+                return new PartIterator();
+            }
+
+            @Override
+            public int size(){
+                return DataSet.this.size;
+            }
+        };
+
+        @Override
+        public Set<Entry<String, DataPart>> entrySet(){
+            return this.entries;
+        }
+
+        @Override
+        public int size(){
+            return DataSet.this.size;
+        }
+
+        @Override
+        public boolean containsKey(Object key){
+            return key instanceof String && DataSet.this.indexOf((String)key) >= 0;
+        }
+
+        @Override
+        public DataPart get(Object key){
+            if(key instanceof String){
+                int index = DataSet.this.indexOf((String)key);
+                if(index >= 0){
+                    return DataSet.this.partAt(index);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public DataPart put(String key, DataPart value){
+            if(!key.equals(value.getName())){
+                throw new IllegalArgumentException("Cannot put part "+value.getName()+" into data set under different key "+key);
+            }
+
+            DataPart previous = this.get(key);
+            DataSet.this.addPart(value);
+            return previous;
+        }
+
+        @Override
+        public DataPart remove(Object key){
+            if(key instanceof String){
+                int index = DataSet.this.indexOf((String)key);
+                if(index >= 0){
+                    DataPart previous = DataSet.this.partAt(index);
+                    DataSet.this.remove(index);
+                    return previous;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void clear(){
+            DataSet.this.keys = null;
+            DataSet.this.types = null;
+            DataSet.this.values = null;
+            DataSet.this.parts = null;
+            DataSet.this.size = 0;
+            DataSet.this.shared = false;
+            DataSet.this.nestedSets = 0;
+            DataSet.this.modCount++;
+        }
+    }
+
+    private class PartIterator implements Iterator<Map.Entry<String, DataPart>>{
+
+        //The table that is iterated stays the same even if entries are removed, see remove()
+        private final String[] iteratedKeys = DataSet.this.keys;
+        private final byte[] iteratedTypes = DataSet.this.types;
+        private int expectedModCount = DataSet.this.modCount;
+        private int current = -1;
+        private int next = this.advance(0);
+
+        private int advance(int from){
+            if(this.iteratedKeys != null){
+                for(int i = from; i < this.iteratedKeys.length; i++){
+                    if(this.iteratedTypes[i] != TYPE_EMPTY){
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private int liveIndex(int index){
+            return DataSet.this.keys == this.iteratedKeys ? index : DataSet.this.indexOf(this.iteratedKeys[index]);
+        }
+
+        @Override
+        public boolean hasNext(){
+            return this.next >= 0;
+        }
+
+        @Override
+        public Map.Entry<String, DataPart> next(){
+            if(this.next < 0){
+                throw new NoSuchElementException();
+            }
+            if(DataSet.this.modCount != this.expectedModCount){
+                throw new ConcurrentModificationException();
+            }
+
+            this.current = this.next;
+            this.next = this.advance(this.current+1);
+
+            return new AbstractMap.SimpleImmutableEntry<>(this.iteratedKeys[this.current], DataSet.this.partAt(this.liveIndex(this.current)));
+        }
+
+        @Override
+        public void remove(){
+            if(this.current < 0){
+                throw new IllegalStateException();
+            }
+            if(DataSet.this.modCount != this.expectedModCount){
+                throw new ConcurrentModificationException();
+            }
+
+            //Removing shifts entries back, so the set copies its table instead of changing the one that is iterated
+            if(DataSet.this.keys == this.iteratedKeys){
+                DataSet.this.shared = true;
+            }
+
+            DataSet.this.remove(this.liveIndex(this.current));
+            this.current = -1;
+            this.expectedModCount = DataSet.this.modCount;
+        }
+    }
 }
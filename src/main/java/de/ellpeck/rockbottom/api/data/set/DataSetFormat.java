@@ -0,0 +1,428 @@
+/*
+ * This file ("DataSetFormat.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
+import de.ellpeck.rockbottom.api.data.set.part.DataPart;
+import de.ellpeck.rockbottom.api.data.set.part.PartDataSet;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import org.newdawn.slick.util.Log;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The versioned binary format that {@link DataSet}s are saved to disk in
+ * <br> Every key is only written once into a string table at the start of the
+ * set and then referred to by its index. Every part is prefixed with the length
+ * of its content, so parts that are unknown or not needed can be skipped without
+ * being parsed. When reading lazily, nested {@link DataSet}s are only decoded the
+ * first time they are accessed, and an {@link IllegalStateException} is thrown from
+ * that access if they turn out to be corrupt
+ * <br> Files that do not start with {@link #MAGIC} are read using
+ * {@link de.ellpeck.rockbottom.api.IApiHandler#readSet(DataInput, DataSet)}
+ */
+public final class DataSetFormat{
+
+    public static final int MAGIC = 0x52424453;
+    /**
+     * The current version of the format
+     * <br> 1: Keys are written inline
+     * <br> 2: Keys are written into a string table
+     * <br> 3: The set is compressed using an {@link IDataCodec}
+     */
+    public static final int VERSION = 3;
+    public static final IDataCodec DEFAULT_CODEC = IDataCodec.DEFLATE;
+    /**
+     * The largest amount of bytes that a compressed set can decompress to
+     */
+    public static final int MAX_DECOMPRESSED_SIZE = 1 << 26;
+
+    public static void write(DataSet set, File file, IDataCodec codec) throws Exception{
+        ByteBuf buf = encode(set, codec);
+
+        try(OutputStream stream = new FileOutputStream(file)){
+            buf.readBytes(stream, buf.readableBytes());
+        }
+    }
+
+    public static void read(DataSet set, File file, boolean lazy) throws Exception{
+        decode(set, Unpooled.wrappedBuffer(Files.readAllBytes(file.toPath())), lazy);
+    }
+
+    /**
+     * Encodes the specified {@link DataSet} including the header that
+     * is also written to files
+     *
+     * @param set   The set
+     * @param codec The codec to compress the set with
+     * @return A buffer containing the encoded set
+     * @throws Exception If writing one of the parts fails
+     */
+    public static ByteBuf encode(DataSet set, IDataCodec codec) throws Exception{
+        int id = RockBottomAPI.DATA_CODEC_REGISTRY.getId(codec);
+        if(id < 0){
+            throw new IllegalArgumentException("Cannot write data set with codec "+codec+" which is not registered into registry "+RockBottomAPI.DATA_CODEC_REGISTRY);
+        }
+
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(MAGIC);
+        buf.writeByte(VERSION);
+        buf.writeByte(id);
+
+        if(codec == IDataCodec.NONE){
+            writeSet(buf, set);
+        }
+        else{
+            ByteBuf content = Unpooled.buffer();
+            writeSet(content, set);
+
+            try(OutputStream compressed = codec.compress(new ByteBufOutputStream(buf))){
+                content.readBytes(compressed, content.readableBytes());
+            }
+        }
+
+        return buf;
+    }
+
+    /**
+     * Decodes a {@link DataSet} that was encoded using {@link #encode(DataSet, IDataCodec)}
+     * or written to a file by any version of this format
+     *
+     * @param set  The set to read into
+     * @param buf  The buffer
+     * @param lazy If nested sets should be decoded lazily
+     * @throws Exception If reading fails
+     */
+    public static void decode(DataSet set, ByteBuf buf, boolean lazy) throws Exception{
+        if(buf.readableBytes() > 4 && buf.getInt(buf.readerIndex()) == MAGIC){
+            buf.skipBytes(4);
+
+            int version = buf.readUnsignedByte();
+            if(version == 1){
+                readParts(buf, set, lazy, null);
+            }
+            else if(version == 2){
+                readSet(buf, set, lazy);
+            }
+            else if(version == VERSION){
+                int id = buf.readUnsignedByte();
+                IDataCodec codec = RockBottomAPI.DATA_CODEC_REGISTRY.get(id);
+                if(codec == null){
+                    throw new DecoderException("Cannot read data set with codec "+id+" which is not registered into registry "+RockBottomAPI.DATA_CODEC_REGISTRY);
+                }
+
+                readSet(decompress(buf, codec), set, lazy);
+            }
+            else{
+                throw new DecoderException("Cannot read data set with unknown format version "+version);
+            }
+        }
+        else{
+            RockBottomAPI.getApiHandler().readSet(new DataInputStream(new ByteBufInputStream(buf)), set);
+        }
+    }
+
+    private static ByteBuf decompress(ByteBuf buf, IDataCodec codec) throws IOException{
+        if(codec == IDataCodec.NONE){
+            return buf;
+        }
+        else{
+            ByteBuf decompressed = Unpooled.buffer((int)Math.min((long)buf.readableBytes()*4, MAX_DECOMPRESSED_SIZE), MAX_DECOMPRESSED_SIZE+1);
+            try(InputStream stream = codec.decompress(new ByteBufInputStream(buf))){
+                int read;
+                do{
+                    if(decompressed.readableBytes() > MAX_DECOMPRESSED_SIZE){
+                        throw new DecoderException("Compressed data set is larger than the maximum of "+MAX_DECOMPRESSED_SIZE+" bytes");
+                    }
+
+                    decompressed.ensureWritable(1);
+                    read = decompressed.writeBytes(stream, decompressed.writableBytes());
+                }
+                while(read >= 0);
+            }
+            return decompressed;
+        }
+    }
+
+    /**
+     * Writes the specified {@link DataSet} and the string table of all of
+     * the keys that it and its nested sets contain to the specified buffer
+     * <br> The size of the set is calculated beforehand so that the buffer
+     * only needs to grow once
+     *
+     * @param buf The buffer
+     * @param set The set
+     * @throws Exception If writing one of the parts fails
+     */
+    public static void writeSet(ByteBuf buf, DataSet set) throws Exception{
+        Map<String, Integer> keys = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        collectKeys(set, keys, table);
+
+        byte[][] encodedKeys = new byte[table.size()][];
+        int size = NetUtil.getVarIntSize(encodedKeys.length);
+        for(int i = 0; i < encodedKeys.length; i++){
+            encodedKeys[i] = table.get(i).getBytes(StandardCharsets.UTF_8);
+            size += NetUtil.getVarIntSize(encodedKeys[i].length)+encodedKeys[i].length;
+        }
+        buf.ensureWritable(size+getPartsSize(set, keys));
+
+        NetUtil.writeVarInt(encodedKeys.length, buf);
+        for(byte[] bytes : encodedKeys){
+            NetUtil.writeVarInt(bytes.length, buf);
+            buf.writeBytes(bytes);
+        }
+
+        writeParts(buf, set, keys);
+    }
+
+    /**
+     * Calculates the amount of bytes that {@link #writeSet(ByteBuf, DataSet)}
+     * will write for the specified {@link DataSet}
+     * <br> Parts whose {@link DataPart#getSize()} isn't known are not included
+     *
+     * @param set The set
+     * @return The amount of bytes
+     */
+    public static int getSize(DataSet set){
+        Map<String, Integer> keys = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        collectKeys(set, keys, table);
+
+        int size = NetUtil.getVarIntSize(table.size());
+        for(String key : table){
+            int length = key.getBytes(StandardCharsets.UTF_8).length;
+            size += NetUtil.getVarIntSize(length)+length;
+        }
+        return size+getPartsSize(set, keys);
+    }
+
+    public static void readSet(ByteBuf buf, DataSet set, boolean lazy) throws Exception{
+        String[] table = new String[NetUtil.checkAmount(buf, NetUtil.readVarInt(buf), 1)];
+        for(int i = 0; i < table.length; i++){
+            table[i] = buf.readCharSequence(NetUtil.checkAmount(buf, NetUtil.readVarInt(buf), 1), StandardCharsets.UTF_8).toString();
+        }
+
+        readParts(buf, set, lazy, table);
+    }
+
+    private static void collectKeys(DataSet set, Map<String, Integer> keys, List<String> table){
+        for(int i = 0; i < set.capacity(); i++){
+            byte type = set.typeAt(i);
+            if(type != DataSet.TYPE_EMPTY){
+                String key = set.keyAt(i);
+                if(!keys.containsKey(key)){
+                    keys.put(key, table.size());
+                    table.add(key);
+                }
+
+                if(type == DataSet.TYPE_PART){
+                    DataPart part = set.partAt(i);
+                    if(part.getClass() == PartDataSet.class){
+                        collectKeys(((PartDataSet)part).get(), keys, table);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int getPartsSize(DataSet set, Map<String, Integer> keys){
+        int size = NetUtil.getVarIntSize(set.size());
+
+        for(int i = 0; i < set.capacity(); i++){
+            byte type = set.typeAt(i);
+            if(type != DataSet.TYPE_EMPTY){
+                size += 1+NetUtil.getVarIntSize(keys.get(set.keyAt(i)))+4;
+
+                if(type != DataSet.TYPE_PART){
+                    size += getPrimitiveSize(type);
+                }
+                else{
+                    DataPart part = set.partAt(i);
+                    if(part.getClass() == PartDataSet.class){
+                        size += getPartsSize(((PartDataSet)part).get(), keys);
+                    }
+                    else{
+                        size += Math.max(0, part.getSize());
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static void writeParts(ByteBuf buf, DataSet set, Map<String, Integer> keys) throws Exception{
+        NetUtil.writeVarInt(set.size(), buf);
+
+        for(int i = 0; i < set.capacity(); i++){
+            byte type = set.typeAt(i);
+            if(type != DataSet.TYPE_EMPTY){
+                DataPart part = type == DataSet.TYPE_PART ? set.partAt(i) : null;
+                Class<? extends DataPart> partClass = part != null ? part.getClass() : DataSet.getPrimitiveClass(type);
+
+                int id = RockBottomAPI.PART_REGISTRY.getId(partClass);
+                if(id < 0){
+                    throw new IllegalArgumentException("Cannot write part "+set.keyAt(i)+" of type "+partClass+" which is not registered into registry "+RockBottomAPI.PART_REGISTRY);
+                }
+
+                buf.writeByte(id);
+                NetUtil.writeVarInt(keys.get(set.keyAt(i)), buf);
+
+                int lengthIndex = buf.writerIndex();
+                buf.writeInt(0);
+
+                if(part == null){
+                    writePrimitive(buf, type, set.valueAt(i));
+                }
+                else if(partClass == PartDataSet.class){
+                    writeParts(buf, ((PartDataSet)part).get(), keys);
+                }
+                else{
+                    part.write(buf);
+                }
+
+                buf.setInt(lengthIndex, buf.writerIndex()-lengthIndex-4);
+            }
+        }
+    }
+
+    private static void readParts(ByteBuf buf, DataSet set, boolean lazy, String[] table) throws Exception{
+        //Every part takes up at least its id, key and length
+        int amount = NetUtil.checkAmount(buf, table != null ? NetUtil.readVarInt(buf) : buf.readInt(), 6);
+
+        for(int i = 0; i < amount; i++){
+            int id = buf.readUnsignedByte();
+
+            String key;
+            if(table != null){
+                int index = NetUtil.readVarInt(buf);
+                if(index < 0 || index >= table.length){
+                    throw new DecoderException("Tried reading key "+index+" from a key table of length "+table.length);
+                }
+                key = table[index];
+            }
+            else{
+                key = buf.readCharSequence(NetUtil.checkAmount(buf, buf.readUnsignedShort(), 1), StandardCharsets.UTF_8).toString();
+            }
+
+            ByteBuf content = buf.readSlice(NetUtil.checkAmount(buf, buf.readInt(), 1));
+
+            Class<? extends DataPart> partClass = RockBottomAPI.PART_REGISTRY.get(id);
+            if(partClass == null){
+                Log.warn("Skipping part "+key+" with id "+id+" which is not registered into registry "+RockBottomAPI.PART_REGISTRY);
+                continue;
+            }
+
+            byte type = DataSet.getPrimitiveType(partClass);
+            if(type != DataSet.TYPE_PART){
+                set.putPrimitive(key, type, readPrimitive(content, type), null);
+            }
+            else if(partClass == PartDataSet.class){
+                if(lazy){
+                    set.addPart(new PartDataSet(key, () -> readLazily(content.duplicate(), table)));
+                }
+                else{
+                    DataSet subset = new DataSet();
+                    readParts(content, subset, false, table);
+                    set.addPart(new PartDataSet(key, subset));
+                }
+            }
+            else{
+                DataPart part = partClass.getConstructor(String.class).newInstance(key);
+                part.read(content);
+                set.addPart(part);
+            }
+        }
+    }
+
+    private static DataSet readLazily(ByteBuf content, String[] table){
+        DataSet set = new DataSet();
+        try{
+            readParts(content, set, true, table);
+        }
+        catch(Exception e){
+            //Returning what was read so far would make the set look valid and lose the rest when it is saved again
+            throw new IllegalStateException("Couldn't read lazily loaded data set", e);
+        }
+        return set;
+    }
+
+    private static void writePrimitive(ByteBuf buf, byte type, long value){
+        switch(type){
+            case DataSet.TYPE_INT:
+            case DataSet.TYPE_FLOAT:
+                buf.writeInt((int)value);
+                break;
+            case DataSet.TYPE_LONG:
+            case DataSet.TYPE_DOUBLE:
+                buf.writeLong(value);
+                break;
+            case DataSet.TYPE_SHORT:
+                buf.writeShort((int)value);
+                break;
+            default:
+                buf.writeByte((int)value);
+                break;
+        }
+    }
+
+    private static int getPrimitiveSize(byte type){
+        switch(type){
+            case DataSet.TYPE_INT:
+            case DataSet.TYPE_FLOAT:
+                return 4;
+            case DataSet.TYPE_LONG:
+            case DataSet.TYPE_DOUBLE:
+                return 8;
+            case DataSet.TYPE_SHORT:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static long readPrimitive(ByteBuf buf, byte type){
+        switch(type){
+            case DataSet.TYPE_INT:
+            case DataSet.TYPE_FLOAT:
+                return buf.readInt();
+            case DataSet.TYPE_LONG:
+            case DataSet.TYPE_DOUBLE:
+                return buf.readLong();
+            case DataSet.TYPE_SHORT:
+                return buf.readShort();
+            case DataSet.TYPE_BOOLEAN:
+                return buf.readBoolean() ? 1L : 0L;
+            default:
+                return buf.readByte();
+        }
+    }
+}
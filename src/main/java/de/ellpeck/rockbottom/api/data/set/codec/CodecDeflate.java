@@ -0,0 +1,75 @@
+/*
+ * This file ("CodecDeflate.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class CodecDeflate implements IDataCodec{
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+
+    public CodecDeflate(int level){
+        this.level = level;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream stream){
+        Deflater deflater = new Deflater(this.level);
+        return new DeflaterOutputStream(stream, deflater, BUFFER_SIZE){
+            @Override
+            public void close() throws IOException{
+                try{
+                    super.close();
+                }
+                finally{
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(InputStream stream){
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(stream, inflater, BUFFER_SIZE){
+            @Override
+            public void close() throws IOException{
+                try{
+                    super.close();
+                }
+                finally{
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString(){
+        return "deflate";
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * This file ("CodecNone.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set.codec;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public class CodecNone implements IDataCodec{
+
+    @Override
+    public OutputStream compress(OutputStream stream){
+        return stream;
+    }
+
+    @Override
+    public InputStream decompress(InputStream stream){
+        return stream;
+    }
+
+    @Override
+    public String toString(){
+        return "none";
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file ("IDataCodec.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A codec that {@link de.ellpeck.rockbottom.api.data.set.DataSet} files can
+ * be compressed with
+ * <br> The id that a codec is registered with in
+ * {@link de.ellpeck.rockbottom.api.RockBottomAPI#DATA_CODEC_REGISTRY} is saved
+ * in the header of every file, so readers can detect it automatically
+ */
+public interface IDataCodec{
+
+    /**
+     * Writes data without compressing it
+     */
+    IDataCodec NONE = new CodecNone();
+    /**
+     * Compresses data using {@link java.util.zip.Deflater} at its fastest level
+     */
+    IDataCodec DEFLATE = new CodecDeflate(1);
+
+    /**
+     * Wraps the specified stream so that anything written to the returned
+     * stream is compressed
+     * <br> The returned stream will be closed when all data has been written
+     *
+     * @param stream The stream to write the compressed data to
+     * @return The stream to write uncompressed data to
+     * @throws IOException If creating the stream fails
+     */
+    OutputStream compress(OutputStream stream) throws IOException;
+
+    /**
+     * Wraps the specified stream so that anything read from the returned
+     * stream is decompressed
+     *
+     * @param stream The stream to read the compressed data from
+     * @return The stream to read uncompressed data from
+     * @throws IOException If creating the stream fails
+     */
+    InputStream decompress(InputStream stream) throws IOException;
+}
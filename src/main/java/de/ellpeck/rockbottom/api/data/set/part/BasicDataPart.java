@@ -18,6 +18,9 @@
 
 package de.ellpeck.rockbottom.api.data.set.part;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 public abstract class BasicDataPart<T> extends DataPart<T>{
 
     protected T data;
@@ -36,6 +39,24 @@ public abstract class BasicDataPart<T> extends DataPart<T>{
         return this.data;
     }
 
+    @Override
+    public boolean equals(Object o){
+        if(this == o){
+            return true;
+        }
+        if(o == null || this.getClass() != o.getClass()){
+            return false;
+        }
+
+        BasicDataPart part = (BasicDataPart)o;
+        return this.name.equals(part.name) && Objects.deepEquals(this.get(), part.get());
+    }
+
+    @Override
+    public int hashCode(){
+        return 31*this.name.hashCode()+Arrays.deepHashCode(new Object[]{this.get()});
+    }
+
     @Override
     public String toString(){
         return this.data.toString();
@@ -18,6 +18,10 @@
 
 package de.ellpeck.rockbottom.api.data.set.part;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 
@@ -35,6 +39,38 @@ public abstract class DataPart<T>{
 
     public abstract void read(DataInput stream) throws Exception;
 
+    /**
+     * Writes this part to the specified buffer
+     * <br> By default, this uses {@link #write(DataOutput)}, but parts that
+     * can copy their content in bulk should override it
+     *
+     * @param buf The buffer
+     * @throws Exception If writing fails
+     */
+    public void write(ByteBuf buf) throws Exception{
+        this.write(new ByteBufOutputStream(buf));
+    }
+
+    /**
+     * Reads this part from the specified buffer
+     * <br> By default, this uses {@link #read(DataInput)}, but parts that
+     * can copy their content in bulk should override it
+     *
+     * @param buf The buffer
+     * @throws Exception If reading fails
+     */
+    public void read(ByteBuf buf) throws Exception{
+        this.read(new ByteBufInputStream(buf));
+    }
+
+    /**
+     * @return The amount of bytes that {@link #write(ByteBuf)} will write,
+     * or -1 if that isn't known without writing the part
+     */
+    public int getSize(){
+        return -1;
+    }
+
     public String getName(){
         return this.name;
     }
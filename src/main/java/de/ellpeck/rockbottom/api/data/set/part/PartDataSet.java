@@ -23,9 +23,12 @@ import de.ellpeck.rockbottom.api.data.set.DataSet;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.util.function.Supplier;
 
 public class PartDataSet extends BasicDataPart<DataSet>{
 
+    private Supplier<DataSet> loader;
+
     public PartDataSet(String name){
         super(name);
     }
@@ -34,14 +37,65 @@ public class PartDataSet extends BasicDataPart<DataSet>{
         super(name, data);
     }
 
+    /**
+     * Creates a part whose set is only decoded by the specified loader
+     * the first time it is accessed
+     * <br> If the loader throws an exception, it is passed on to whatever
+     * accessed the set, and the set stays unloaded
+     *
+     * @param name   The name
+     * @param loader The loader that decodes the set
+     */
+    public PartDataSet(String name, Supplier<DataSet> loader){
+        super(name);
+        this.loader = loader;
+    }
+
+    @Override
+    public DataSet get(){
+        if(this.loader != null){
+            this.data = this.loader.get();
+            this.loader = null;
+        }
+        return this.data;
+    }
+
+    /**
+     * Creates a part containing a copy of this part's set, see {@link DataSet#copy()}
+     * <br> If the set has not been decoded yet, the copy decodes it separately
+     *
+     * @return The copy
+     */
+    public PartDataSet copy(){
+        if(this.loader != null){
+            return new PartDataSet(this.name, this.loader);
+        }
+        else{
+            return new PartDataSet(this.name, this.data != null ? this.data.copy() : null);
+        }
+    }
+
+    /**
+     * @return If the set of this part has not been decoded yet
+     */
+    public boolean isLoaded(){
+        return this.loader == null;
+    }
+
     @Override
     public void write(DataOutput stream) throws Exception{
-        RockBottomAPI.getApiHandler().writeSet(stream, this.data);
+        RockBottomAPI.getApiHandler().writeSet(stream, this.get());
     }
 
     @Override
     public void read(DataInput stream) throws Exception{
         this.data = new DataSet();
+        this.loader = null;
         RockBottomAPI.getApiHandler().readSet(stream, this.data);
     }
+
+    @Override
+    public String toString(){
+        return String.valueOf(this.get());
+    }
 }
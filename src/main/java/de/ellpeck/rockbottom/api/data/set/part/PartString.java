@@ -18,6 +18,9 @@
 
 package de.ellpeck.rockbottom.api.data.set.part;
 
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 
@@ -50,4 +53,29 @@ public class PartString extends BasicDataPart<String>{
 
         this.data = new String(chars);
     }
+
+    @Override
+    public void write(ByteBuf buf){
+        buf.writeInt(this.data.length());
+
+        for(int i = 0; i < this.data.length(); i++){
+            buf.writeChar(this.data.charAt(i));
+        }
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        char[] chars = new char[NetUtil.checkAmount(buf, buf.readInt(), 2)];
+
+        for(int i = 0; i < chars.length; i++){
+            chars[i] = buf.readChar();
+        }
+
+        this.data = new String(chars);
+    }
+
+    @Override
+    public int getSize(){
+        return 4+this.data.length()*2;
+    }
 }
@@ -18,6 +18,8 @@
 
 package de.ellpeck.rockbottom.api.data.set.part;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.util.UUID;
@@ -42,4 +44,20 @@ public class PartUniqueId extends BasicDataPart<UUID>{
     public void read(DataInput stream) throws Exception{
         this.data = new UUID(stream.readLong(), stream.readLong());
     }
+
+    @Override
+    public void write(ByteBuf buf){
+        buf.writeLong(this.data.getMostSignificantBits());
+        buf.writeLong(this.data.getLeastSignificantBits());
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        this.data = new UUID(buf.readLong(), buf.readLong());
+    }
+
+    @Override
+    public int getSize(){
+        return 16;
+    }
 }
@@ -19,6 +19,8 @@
 package de.ellpeck.rockbottom.api.data.set.part.num.array;
 
 import de.ellpeck.rockbottom.api.data.set.part.BasicDataPart;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -62,6 +64,43 @@ public class PartByteByteArray extends BasicDataPart<byte[][]>{
         }
     }
 
+    @Override
+    public void write(ByteBuf buf){
+        buf.writeInt(this.data.length);
+
+        for(byte[] array : this.data){
+            buf.writeInt(array.length);
+
+            for(byte b : array){
+                buf.writeByte(b);
+            }
+        }
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        int amount = NetUtil.checkAmount(buf, buf.readInt(), 4);
+        this.data = new byte[amount][];
+
+        for(int i = 0; i < amount; i++){
+            int innerAmount = NetUtil.checkAmount(buf, buf.readInt(), 1);
+            this.data[i] = new byte[innerAmount];
+
+            for(int j = 0; j < innerAmount; j++){
+                this.data[i][j] = buf.readByte();
+            }
+        }
+    }
+
+    @Override
+    public int getSize(){
+        int size = 4;
+        for(byte[] array : this.data){
+            size += 4+array.length;
+        }
+        return size;
+    }
+
     @Override
     public String toString(){
         return Arrays.deepToString(this.data);
@@ -0,0 +1,116 @@
+/*
+ * This file ("PartByteGrid.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set.part.num.array;
+
+import de.ellpeck.rockbottom.api.data.set.part.BasicDataPart;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.util.Arrays;
+
+/**
+ * A two-dimensional grid of bytes that is stored in a single array
+ * <br> The value at {@code x}, {@code y} is at index {@code x*height+y},
+ * which is the same order that a {@code byte[width][height]} has
+ */
+public class PartByteGrid extends BasicDataPart<byte[]>{
+
+    private int width;
+    private int height;
+
+    public PartByteGrid(String name){
+        super(name);
+    }
+
+    public PartByteGrid(String name, byte[] data, int width, int height){
+        super(name, data);
+
+        if(data.length != width*height){
+            throw new IllegalArgumentException("Tried creating grid "+name+" with size "+width+"x"+height+" from an array of length "+data.length);
+        }
+
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth(){
+        return this.width;
+    }
+
+    public int getHeight(){
+        return this.height;
+    }
+
+    @Override
+    public void write(DataOutput stream) throws Exception{
+        stream.writeInt(this.width);
+        stream.writeInt(this.height);
+        stream.write(this.data);
+    }
+
+    @Override
+    public void read(DataInput stream) throws Exception{
+        this.width = stream.readInt();
+        this.height = stream.readInt();
+
+        this.data = new byte[getLength(this.width, this.height)];
+        stream.readFully(this.data);
+    }
+
+    @Override
+    public void write(ByteBuf buf){
+        buf.writeInt(this.width);
+        buf.writeInt(this.height);
+        buf.writeBytes(this.data);
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        this.width = buf.readInt();
+        this.height = buf.readInt();
+
+        this.data = new byte[NetUtil.checkAmount(buf, getLength(this.width, this.height), 1)];
+        buf.readBytes(this.data);
+    }
+
+    @Override
+    public int getSize(){
+        return 8+this.data.length;
+    }
+
+    @Override
+    public String toString(){
+        return this.width+"x"+this.height+Arrays.toString(this.data);
+    }
+
+    /**
+     * @return The length of the array that holds a grid of the specified size
+     * @throws DecoderException If the size is negative or too large to fit into an array
+     */
+    private static int getLength(int width, int height){
+        long length = (long)width*height;
+        if(width < 0 || height < 0 || length > Integer.MAX_VALUE){
+            throw new DecoderException("Tried reading grid with invalid size "+width+"x"+height);
+        }
+        return (int)length;
+    }
+}
@@ -19,6 +19,8 @@
 package de.ellpeck.rockbottom.api.data.set.part.num.array;
 
 import de.ellpeck.rockbottom.api.data.set.part.BasicDataPart;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -52,6 +54,31 @@ public class PartIntArray extends BasicDataPart<int[]>{
         }
     }
 
+    @Override
+    public void write(ByteBuf buf){
+        int length = this.data.length*4;
+
+        buf.writeInt(this.data.length);
+        buf.ensureWritable(length);
+
+        buf.nioBuffer(buf.writerIndex(), length).asIntBuffer().put(this.data);
+        buf.writerIndex(buf.writerIndex()+length);
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        this.data = new int[NetUtil.checkAmount(buf, buf.readInt(), 4)];
+
+        int length = this.data.length*4;
+        buf.nioBuffer(buf.readerIndex(), length).asIntBuffer().get(this.data);
+        buf.skipBytes(length);
+    }
+
+    @Override
+    public int getSize(){
+        return 4+this.data.length*4;
+    }
+
     @Override
     public String toString(){
         return Arrays.toString(this.data);
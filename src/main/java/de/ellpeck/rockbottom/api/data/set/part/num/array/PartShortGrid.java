@@ -0,0 +1,131 @@
+/*
+ * This file ("PartShortGrid.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set.part.num.array;
+
+import de.ellpeck.rockbottom.api.data.set.part.BasicDataPart;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A two-dimensional grid of shorts that is stored in a single array
+ * <br> The value at {@code x}, {@code y} is at index {@code x*height+y},
+ * which is the same order that a {@code short[width][height]} has
+ */
+public class PartShortGrid extends BasicDataPart<short[]>{
+
+    private int width;
+    private int height;
+
+    public PartShortGrid(String name){
+        super(name);
+    }
+
+    public PartShortGrid(String name, short[] data, int width, int height){
+        super(name, data);
+
+        if(data.length != width*height){
+            throw new IllegalArgumentException("Tried creating grid "+name+" with size "+width+"x"+height+" from an array of length "+data.length);
+        }
+
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth(){
+        return this.width;
+    }
+
+    public int getHeight(){
+        return this.height;
+    }
+
+    @Override
+    public void write(DataOutput stream) throws Exception{
+        stream.writeInt(this.width);
+        stream.writeInt(this.height);
+
+        byte[] bytes = new byte[this.data.length*2];
+        ByteBuffer.wrap(bytes).asShortBuffer().put(this.data);
+        stream.write(bytes);
+    }
+
+    @Override
+    public void read(DataInput stream) throws Exception{
+        this.width = stream.readInt();
+        this.height = stream.readInt();
+
+        int length = getLength(this.width, this.height);
+        byte[] bytes = new byte[length*2];
+        stream.readFully(bytes);
+
+        this.data = new short[length];
+        ByteBuffer.wrap(bytes).asShortBuffer().get(this.data);
+    }
+
+    @Override
+    public void write(ByteBuf buf){
+        int length = this.data.length*2;
+
+        buf.writeInt(this.width);
+        buf.writeInt(this.height);
+        buf.ensureWritable(length);
+
+        buf.nioBuffer(buf.writerIndex(), length).asShortBuffer().put(this.data);
+        buf.writerIndex(buf.writerIndex()+length);
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        this.width = buf.readInt();
+        this.height = buf.readInt();
+        this.data = new short[NetUtil.checkAmount(buf, getLength(this.width, this.height), 2)];
+
+        int length = this.data.length*2;
+        buf.nioBuffer(buf.readerIndex(), length).asShortBuffer().get(this.data);
+        buf.skipBytes(length);
+    }
+
+    @Override
+    public int getSize(){
+        return 8+this.data.length*2;
+    }
+
+    @Override
+    public String toString(){
+        return this.width+"x"+this.height+Arrays.toString(this.data);
+    }
+
+    /**
+     * @return The length of the array that holds a grid of the specified size
+     * @throws DecoderException If the size is negative or too large to fit into an array
+     */
+    private static int getLength(int width, int height){
+        long length = (long)width*height;
+        if(width < 0 || height < 0 || length > Integer.MAX_VALUE/2){
+            throw new DecoderException("Tried reading grid with invalid size "+width+"x"+height);
+        }
+        return (int)length;
+    }
+}
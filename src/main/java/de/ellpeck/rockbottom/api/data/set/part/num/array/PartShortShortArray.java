@@ -19,6 +19,8 @@
 package de.ellpeck.rockbottom.api.data.set.part.num.array;
 
 import de.ellpeck.rockbottom.api.data.set.part.BasicDataPart;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -62,6 +64,43 @@ public class PartShortShortArray extends BasicDataPart<short[][]>{
         }
     }
 
+    @Override
+    public void write(ByteBuf buf){
+        buf.writeInt(this.data.length);
+
+        for(short[] array : this.data){
+            buf.writeInt(array.length);
+
+            for(short b : array){
+                buf.writeShort(b);
+            }
+        }
+    }
+
+    @Override
+    public void read(ByteBuf buf){
+        int amount = NetUtil.checkAmount(buf, buf.readInt(), 4);
+        this.data = new short[amount][];
+
+        for(int i = 0; i < amount; i++){
+            int innerAmount = NetUtil.checkAmount(buf, buf.readInt(), 2);
+            this.data[i] = new short[innerAmount];
+
+            for(int j = 0; j < innerAmount; j++){
+                this.data[i][j] = buf.readShort();
+            }
+        }
+    }
+
+    @Override
+    public int getSize(){
+        int size = 4;
+        for(short[] array : this.data){
+            size += 4+array.length*2;
+        }
+        return size;
+    }
+
     @Override
     public String toString(){
         return Arrays.deepToString(this.data);
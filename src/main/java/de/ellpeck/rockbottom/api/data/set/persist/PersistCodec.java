@@ -0,0 +1,395 @@
+/*
+ * This file ("PersistCodec.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.data.set.persist;
+
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Saves and loads the fields of a class that are marked with {@link Persist}
+ * <br> The fields are looked up once per class and accessed through
+ * {@link MethodHandle}s afterwards, so no reflection happens per call.
+ * <br> Objects can either be saved to a {@link DataSet} using the keys of the fields,
+ * which is what is used for saving to disk, or be written to a {@link ByteBuf}
+ * positionally without any keys, which is what should be used for syncing
+ * objects over the network where both sides know the same fields
+ */
+public final class PersistCodec{
+
+    private static final ClassValue<PersistCodec> CODECS = new ClassValue<PersistCodec>(){
+        @Override
+        protected PersistCodec computeValue(Class<?> type){
+            return new PersistCodec(type);
+        }
+    };
+
+    private final PersistField[] fields;
+
+    private PersistCodec(Class<?> type){
+        List<PersistField> fields = new ArrayList<>();
+
+        Class<?> superclass = type.getSuperclass();
+        if(superclass != null && superclass != Object.class){
+            fields.addAll(Arrays.asList(forClass(superclass).fields));
+        }
+
+        //Sorted by name so that the positional order doesn't depend on the JVM
+        Field[] declared = type.getDeclaredFields();
+        Arrays.sort(declared, Comparator.comparing(Field::getName));
+
+        for(Field field : declared){
+            Persist persist = field.getAnnotation(Persist.class);
+            if(persist != null){
+                fields.add(new PersistField(field, persist.value().isEmpty() ? field.getName() : persist.value()));
+            }
+        }
+
+        this.fields = fields.toArray(new PersistField[fields.size()]);
+    }
+
+    /**
+     * Gets the codec for the specified class, creating it the first time
+     *
+     * @param type The class
+     * @return The codec
+     * @throws IllegalArgumentException If the class has a {@link Persist} field that cannot be persisted
+     */
+    public static PersistCodec forClass(Class<?> type){
+        return CODECS.get(type);
+    }
+
+    /**
+     * @return The amount of fields that this codec persists
+     */
+    public int getFieldAmount(){
+        return this.fields.length;
+    }
+
+    public void save(Object object, DataSet set){
+        try{
+            for(PersistField field : this.fields){
+                field.save(object, set);
+            }
+        }
+        catch(Throwable e){
+            throw new IllegalStateException("Couldn't save object "+object, e);
+        }
+    }
+
+    /**
+     * Loads the fields of the specified object from the specified {@link DataSet}
+     * <br> Fields whose keys are not in the set keep their current value
+     *
+     * @param object The object
+     * @param set    The set
+     */
+    public void load(Object object, DataSet set){
+        try{
+            for(PersistField field : this.fields){
+                if(set.hasKey(field.key)){
+                    field.load(object, set);
+                }
+            }
+        }
+        catch(Throwable e){
+            throw new IllegalStateException("Couldn't load object "+object, e);
+        }
+    }
+
+    public void write(Object object, ByteBuf buf) throws IOException{
+        try{
+            for(PersistField field : this.fields){
+                field.write(object, buf);
+            }
+        }
+        catch(IOException e){
+            throw e;
+        }
+        catch(Throwable e){
+            throw new IOException("Couldn't write object "+object, e);
+        }
+    }
+
+    public void read(Object object, ByteBuf buf) throws IOException{
+        try{
+            for(PersistField field : this.fields){
+                field.read(object, buf);
+            }
+        }
+        catch(IOException e){
+            throw e;
+        }
+        catch(Throwable e){
+            throw new IOException("Couldn't read object "+object, e);
+        }
+    }
+
+    private static final class PersistField{
+
+        private static final int BOOLEAN = 0;
+        private static final int BYTE = 1;
+        private static final int SHORT = 2;
+        private static final int INT = 3;
+        private static final int LONG = 4;
+        private static final int FLOAT = 5;
+        private static final int DOUBLE = 6;
+        private static final int STRING = 7;
+        private static final int UNIQUE_ID = 8;
+        private static final int DATA_SET = 9;
+
+        private final String key;
+        private final int type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private PersistField(Field field, String key){
+            this.key = key;
+            this.type = getType(field);
+
+            int modifiers = field.getModifiers();
+            if(Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)){
+                throw new IllegalArgumentException("Cannot persist field "+field+" because it is static or final");
+            }
+
+            try{
+                field.setAccessible(true);
+
+                Class<?> valueType = field.getType().isPrimitive() ? field.getType() : Object.class;
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                this.getter = lookup.unreflectGetter(field).asType(MethodType.methodType(valueType, Object.class));
+                this.setter = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, valueType));
+            }
+            catch(IllegalAccessException e){
+                throw new IllegalArgumentException("Cannot access field "+field, e);
+            }
+        }
+
+        private static int getType(Field field){
+            Class<?> type = field.getType();
+            if(type == boolean.class){
+                return BOOLEAN;
+            }
+            else if(type == byte.class){
+                return BYTE;
+            }
+            else if(type == short.class){
+                return SHORT;
+            }
+            else if(type == int.class){
+                return INT;
+            }
+            else if(type == long.class){
+                return LONG;
+            }
+            else if(type == float.class){
+                return FLOAT;
+            }
+            else if(type == double.class){
+                return DOUBLE;
+            }
+            else if(type == String.class){
+                return STRING;
+            }
+            else if(type == UUID.class){
+                return UNIQUE_ID;
+            }
+            else if(type == DataSet.class){
+                return DATA_SET;
+            }
+            else{
+                throw new IllegalArgumentException("Cannot persist field "+field+" of unsupported type "+type);
+            }
+        }
+
+        private void save(Object object, DataSet set) throws Throwable{
+            switch(this.type){
+                case BOOLEAN:
+                    set.addBoolean(this.key, (boolean)this.getter.invokeExact(object));
+                    break;
+                case BYTE:
+                    set.addByte(this.key, (byte)this.getter.invokeExact(object));
+                    break;
+                case SHORT:
+                    set.addShort(this.key, (short)this.getter.invokeExact(object));
+                    break;
+                case INT:
+                    set.addInt(this.key, (int)this.getter.invokeExact(object));
+                    break;
+                case LONG:
+                    set.addLong(this.key, (long)this.getter.invokeExact(object));
+                    break;
+                case FLOAT:
+                    set.addFloat(this.key, (float)this.getter.invokeExact(object));
+                    break;
+                case DOUBLE:
+                    set.addDouble(this.key, (double)this.getter.invokeExact(object));
+                    break;
+                default:
+                    Object value = (Object)this.getter.invokeExact(object);
+                    if(value != null){
+                        if(this.type == STRING){
+                            set.addString(this.key, (String)value);
+                        }
+                        else if(this.type == UNIQUE_ID){
+                            set.addUniqueId(this.key, (UUID)value);
+                        }
+                        else{
+                            set.addDataSet(this.key, (DataSet)value);
+                        }
+                    }
+                    break;
+            }
+        }
+
+        private void load(Object object, DataSet set) throws Throwable{
+            switch(this.type){
+                case BOOLEAN:
+                    this.setter.invokeExact(object, set.getBoolean(this.key));
+                    break;
+                case BYTE:
+                    this.setter.invokeExact(object, set.getByte(this.key));
+                    break;
+                case SHORT:
+                    this.setter.invokeExact(object, set.getShort(this.key));
+                    break;
+                case INT:
+                    this.setter.invokeExact(object, set.getInt(this.key));
+                    break;
+                case LONG:
+                    this.setter.invokeExact(object, set.getLong(this.key));
+                    break;
+                case FLOAT:
+                    this.setter.invokeExact(object, set.getFloat(this.key));
+                    break;
+                case DOUBLE:
+                    this.setter.invokeExact(object, set.getDouble(this.key));
+                    break;
+                case STRING:
+                    this.setter.invokeExact(object, (Object)set.getString(this.key));
+                    break;
+                case UNIQUE_ID:
+                    this.setter.invokeExact(object, (Object)set.getUniqueId(this.key));
+                    break;
+                default:
+                    this.setter.invokeExact(object, (Object)set.getDataSet(this.key));
+                    break;
+            }
+        }
+
+        private void write(Object object, ByteBuf buf) throws Throwable{
+            switch(this.type){
+                case BOOLEAN:
+                    buf.writeBoolean((boolean)this.getter.invokeExact(object));
+                    break;
+                case BYTE:
+                    buf.writeByte((byte)this.getter.invokeExact(object));
+                    break;
+                case SHORT:
+                    buf.writeShort((short)this.getter.invokeExact(object));
+                    break;
+                case INT:
+                    buf.writeInt((int)this.getter.invokeExact(object));
+                    break;
+                case LONG:
+                    buf.writeLong((long)this.getter.invokeExact(object));
+                    break;
+                case FLOAT:
+                    buf.writeFloat((float)this.getter.invokeExact(object));
+                    break;
+                case DOUBLE:
+                    buf.writeDouble((double)this.getter.invokeExact(object));
+                    break;
+                default:
+                    Object value = (Object)this.getter.invokeExact(object);
+                    buf.writeBoolean(value != null);
+
+                    if(value != null){
+                        if(this.type == STRING){
+                            NetUtil.writeStringToBuffer((String)value, buf);
+                        }
+                        else if(this.type == UNIQUE_ID){
+                            UUID id = (UUID)value;
+                            buf.writeLong(id.getMostSignificantBits());
+                            buf.writeLong(id.getLeastSignificantBits());
+                        }
+                        else{
+                            NetUtil.writeSetToBuffer((DataSet)value, buf);
+                        }
+                    }
+                    break;
+            }
+        }
+
+        private void read(Object object, ByteBuf buf) throws Throwable{
+            switch(this.type){
+                case BOOLEAN:
+                    this.setter.invokeExact(object, buf.readBoolean());
+                    break;
+                case BYTE:
+                    this.setter.invokeExact(object, buf.readByte());
+                    break;
+                case SHORT:
+                    this.setter.invokeExact(object, buf.readShort());
+                    break;
+                case INT:
+                    this.setter.invokeExact(object, buf.readInt());
+                    break;
+                case LONG:
+                    this.setter.invokeExact(object, buf.readLong());
+                    break;
+                case FLOAT:
+                    this.setter.invokeExact(object, buf.readFloat());
+                    break;
+                case DOUBLE:
+                    this.setter.invokeExact(object, buf.readDouble());
+                    break;
+                default:
+                    Object value = null;
+                    if(buf.readBoolean()){
+                        if(this.type == STRING){
+                            value = NetUtil.readStringFromBuffer(buf);
+                        }
+                        else if(this.type == UNIQUE_ID){
+                            value = new UUID(buf.readLong(), buf.readLong());
+                        }
+                        else{
+                            DataSet set = new DataSet();
+                            NetUtil.readSetFromBuffer(set, buf);
+                            value = set;
+                        }
+                    }
+                    this.setter.invokeExact(object, value);
+                    break;
+            }
+        }
+    }
+}
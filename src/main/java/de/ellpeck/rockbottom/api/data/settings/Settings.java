@@ -19,6 +19,7 @@
 package de.ellpeck.rockbottom.api.data.settings;
 
 import de.ellpeck.rockbottom.api.data.IDataManager;
+import de.ellpeck.rockbottom.api.net.compression.PacketCompression;
 import de.ellpeck.rockbottom.api.util.Util;
 import org.newdawn.slick.Color;
 import org.newdawn.slick.Input;
@@ -65,6 +66,7 @@ public class Settings implements IPropSettings{
     public int buttonGuiAction2;
 
     public int serverStartPort;
+    public int compressionThreshold;
 
     public int[] keysItemSelection = new int[8];
 
@@ -102,6 +104,7 @@ public class Settings implements IPropSettings{
         this.buttonGuiAction2 = this.getProp(props, "button_gui_2", Input.MOUSE_RIGHT_BUTTON);
 
         this.serverStartPort = this.getProp(props, "server_port", 8000);
+        this.compressionThreshold = this.getProp(props, "compression_threshold", PacketCompression.DEFAULT_THRESHOLD);
 
         int[] defaultKeys = new int[]{Input.KEY_1, Input.KEY_2, Input.KEY_3, Input.KEY_4, Input.KEY_5, Input.KEY_6, Input.KEY_7, Input.KEY_8};
         for(int i = 0; i < this.keysItemSelection.length; i++){
@@ -141,6 +144,7 @@ public class Settings implements IPropSettings{
         this.setProp(props, "button_gui_2", this.buttonGuiAction2);
 
         this.setProp(props, "server_port", this.serverStartPort);
+        this.setProp(props, "compression_threshold", this.compressionThreshold);
 
         for(int i = 0; i < this.keysItemSelection.length; i++){
             this.setProp(props, "key_item_select_"+i, this.keysItemSelection[i]);
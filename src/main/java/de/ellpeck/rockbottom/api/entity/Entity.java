@@ -21,7 +21,10 @@ package de.ellpeck.rockbottom.api.entity;
 import de.ellpeck.rockbottom.api.IGameInstance;
 import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.persist.Persist;
+import de.ellpeck.rockbottom.api.data.set.persist.PersistCodec;
 import de.ellpeck.rockbottom.api.net.packet.toclient.PacketDeath;
+import de.ellpeck.rockbottom.api.net.sync.MovementSync;
 import de.ellpeck.rockbottom.api.render.entity.IEntityRenderer;
 import de.ellpeck.rockbottom.api.util.BoundBox;
 import de.ellpeck.rockbottom.api.util.Direction;
@@ -39,14 +42,17 @@ public class Entity extends MovableWorldObject{
 
     public Direction facing = Direction.NONE;
 
+    @Persist("ticks")
     public int ticksExisted;
     public int fallAmount;
     public double lastX;
     public double lastY;
     protected boolean dead;
+    @Persist("uuid")
     protected UUID uniqueId;
 
     private DataSet additionalData;
+    private MovementSync movementSync;
 
     public Entity(IWorld world){
         super(world);
@@ -63,6 +69,31 @@ public class Entity extends MovableWorldObject{
 
     public void update(IGameInstance game){
         RockBottomAPI.getApiHandler().doDefaultEntityUpdate(this);
+
+        if(this.doesSync()){
+            if(RockBottomAPI.getNet().isServer()){
+                if(this.world.isChunkLoaded(this.chunkX, this.chunkY)){
+                    IChunk chunk = this.world.getChunkFromGridCoords(this.chunkX, this.chunkY);
+                    this.getMovementSync().update(chunk);
+                }
+            }
+            else if(RockBottomAPI.getNet().isClient()){
+                this.getMovementSync().interpolate();
+            }
+        }
+    }
+
+    /**
+     * Gets the object that syncs this entity's position and motion between
+     * the server and its clients
+     *
+     * @return The movement sync
+     */
+    public MovementSync getMovementSync(){
+        if(this.movementSync == null){
+            this.movementSync = new MovementSync(this);
+        }
+        return this.movementSync;
     }
 
     public boolean doesSync(){
@@ -100,7 +131,7 @@ public class Entity extends MovableWorldObject{
         this.dead = dead;
 
         if(RockBottomAPI.getNet().isServer()){
-            RockBottomAPI.getNet().sendToAllPlayers(this.world, new PacketDeath(this.getUniqueId()));
+            RockBottomAPI.getNet().sendToTrackingPlayers(this.world, this.x, this.y, new PacketDeath(this.getUniqueId()));
         }
     }
 
@@ -134,14 +165,18 @@ public class Entity extends MovableWorldObject{
         this.additionalData = set;
     }
 
+    /**
+     * Saves this entity to the specified {@link DataSet}
+     * <br> All fields marked with {@link Persist} are saved automatically
+     * using the {@link PersistCodec} of the entity's class
+     *
+     * @param set The set
+     */
     public void save(DataSet set){
         set.addDouble("x", this.x);
         set.addDouble("y", this.y);
-        set.addDouble("motion_x", this.motionX);
-        set.addDouble("motion_y", this.motionY);
-        set.addInt("ticks", this.ticksExisted);
         set.addBoolean("dead", this.isDead());
-        set.addUniqueId("uuid", this.uniqueId);
+        PersistCodec.forClass(this.getClass()).save(this, set);
 
         if(this.additionalData != null){
             set.addDataSet("data", this.additionalData);
@@ -150,11 +185,8 @@ public class Entity extends MovableWorldObject{
 
     public void load(DataSet set){
         this.setPos(set.getDouble("x"), set.getDouble("y"));
-        this.motionX = set.getDouble("motion_x");
-        this.motionY = set.getDouble("motion_y");
-        this.ticksExisted = set.getInt("ticks");
         this.setDead(set.getBoolean("dead"));
-        this.uniqueId = set.getUniqueId("uuid");
+        PersistCodec.forClass(this.getClass()).load(this, set);
 
         if(set.hasKey("data")){
             this.additionalData = set.getDataSet("data");
@@ -21,6 +21,7 @@ package de.ellpeck.rockbottom.api.entity;
 import de.ellpeck.rockbottom.api.IGameInstance;
 import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.persist.Persist;
 import de.ellpeck.rockbottom.api.item.ItemInstance;
 import de.ellpeck.rockbottom.api.render.entity.IEntityRenderer;
 import de.ellpeck.rockbottom.api.render.entity.ItemEntityRenderer;
@@ -33,6 +34,7 @@ public class EntityItem extends Entity{
     private final IEntityRenderer renderer;
     public ItemInstance item;
 
+    @Persist("pickup_delay")
     private int pickupDelay = 10;
 
     public EntityItem(IWorld world){
@@ -107,8 +109,6 @@ public class EntityItem extends Entity{
         DataSet itemSet = new DataSet();
         this.item.save(itemSet);
         set.addDataSet("item", itemSet);
-
-        set.addInt("pickup_delay", this.pickupDelay);
     }
 
     @Override
@@ -117,6 +117,5 @@ public class EntityItem extends Entity{
 
         DataSet itemSet = set.getDataSet("item");
         this.item = ItemInstance.load(itemSet);
-        this.pickupDelay = set.getInt("pickup_delay");
     }
 }
@@ -20,12 +20,14 @@ package de.ellpeck.rockbottom.api.entity;
 
 import de.ellpeck.rockbottom.api.IGameInstance;
 import de.ellpeck.rockbottom.api.RockBottomAPI;
-import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.persist.Persist;
 import de.ellpeck.rockbottom.api.world.IWorld;
 
 public abstract class EntityLiving extends Entity{
 
+    @Persist
     protected int health;
+    @Persist
     protected boolean jumping;
 
     public EntityLiving(IWorld world){
@@ -74,20 +76,4 @@ public abstract class EntityLiving extends Entity{
     public abstract int getMaxHealth();
 
     public abstract int getRegenRate();
-
-    @Override
-    public void save(DataSet set){
-        super.save(set);
-
-        set.addBoolean("jumping", this.jumping);
-        set.addInt("health", this.health);
-    }
-
-    @Override
-    public void load(DataSet set){
-        super.load(set);
-
-        this.jumping = set.getBoolean("jumping");
-        this.health = set.getInt("health");
-    }
 }
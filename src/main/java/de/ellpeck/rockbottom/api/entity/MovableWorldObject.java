@@ -18,6 +18,7 @@
 
 package de.ellpeck.rockbottom.api.entity;
 
+import de.ellpeck.rockbottom.api.data.set.persist.Persist;
 import de.ellpeck.rockbottom.api.util.BoundBox;
 import de.ellpeck.rockbottom.api.world.IWorld;
 
@@ -30,7 +31,9 @@ public abstract class MovableWorldObject{
     public double x;
     public double y;
 
+    @Persist("motion_x")
     public double motionX;
+    @Persist("motion_y")
     public double motionY;
 
     public boolean collidedHor;
@@ -24,7 +24,9 @@ import de.ellpeck.rockbottom.api.gui.Gui;
 import de.ellpeck.rockbottom.api.gui.container.ItemContainer;
 import de.ellpeck.rockbottom.api.inventory.IInvChangeCallback;
 import de.ellpeck.rockbottom.api.inventory.Inventory;
+import de.ellpeck.rockbottom.api.net.INetHandler;
 import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.net.sync.ChunkStreamer;
 import de.ellpeck.rockbottom.api.world.IChunk;
 import de.ellpeck.rockbottom.api.world.IWorld;
 import org.newdawn.slick.Color;
@@ -47,6 +49,13 @@ public abstract class AbstractEntityPlayer extends EntityLiving implements IInvC
 
     public abstract void resetAndSpawn(IGameInstance game);
 
+    /**
+     * Sends the specified packet to this player
+     * <br> Unless the packet is {@link IPacket#isUrgent()}, it is queued
+     * until the end of the tick, see {@link INetHandler#getBatcher()}
+     *
+     * @param packet The packet
+     */
     public abstract void sendPacket(IPacket packet);
 
     public abstract void move(int type);
@@ -57,6 +66,11 @@ public abstract class AbstractEntityPlayer extends EntityLiving implements IInvC
 
     public abstract List<IChunk> getChunksInRange();
 
+    /**
+     * @return The streamer that sends the chunks this player loads to their client, only used on the server
+     */
+    public abstract ChunkStreamer getChunkStreamer();
+
     public abstract int getCommandLevel();
 
     public abstract ItemContainer getInvContainer();
@@ -26,6 +26,14 @@ import java.util.List;
 
 public class Inventory implements IInventory{
 
+    private static final String[] SLOT_KEYS = new String[128];
+
+    static{
+        for(int i = 0; i < SLOT_KEYS.length; i++){
+            SLOT_KEYS[i] = "item_"+i;
+        }
+    }
+
     protected final List<IInvChangeCallback> callbacks = new ArrayList<>();
     protected final ItemInstance[] slots;
 
@@ -172,14 +180,14 @@ public class Inventory implements IInventory{
             if(slot != null){
                 DataSet subset = new DataSet();
                 slot.save(subset);
-                set.addDataSet("item_"+i, subset);
+                set.addDataSet(getSlotKey(i), subset);
             }
         }
     }
 
     public void load(DataSet set){
         for(int i = 0; i < this.slots.length; i++){
-            DataSet subset = set.getDataSet("item_"+i);
+            DataSet subset = set.getDataSet(getSlotKey(i));
             if(!subset.isEmpty()){
                 this.slots[i] = ItemInstance.load(subset);
             }
@@ -188,4 +196,8 @@ public class Inventory implements IInventory{
             }
         }
     }
+
+    private static String getSlotKey(int slot){
+        return slot < SLOT_KEYS.length ? SLOT_KEYS[slot] : "item_"+slot;
+    }
 }
@@ -21,7 +21,10 @@ package de.ellpeck.rockbottom.api.net;
 import de.ellpeck.rockbottom.api.data.settings.CommandPermissions;
 import de.ellpeck.rockbottom.api.entity.Entity;
 import de.ellpeck.rockbottom.api.entity.player.AbstractEntityPlayer;
+import de.ellpeck.rockbottom.api.net.metrics.PacketMetrics;
 import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.util.Util;
+import de.ellpeck.rockbottom.api.world.IChunk;
 import de.ellpeck.rockbottom.api.world.IWorld;
 import io.netty.channel.group.ChannelGroup;
 
@@ -47,6 +50,66 @@ public interface INetHandler{
 
     void sendToAllPlayersExcept(IWorld world, IPacket packet, Entity except);
 
+    /**
+     * Sends a packet to all players that have the specified chunk loaded
+     * <br> Use this rather than {@link #sendToAllPlayers(IWorld, IPacket)} for
+     * anything that happens inside of a chunk, like entity and tile entity updates
+     *
+     * @param chunk  The chunk
+     * @param packet The packet
+     */
+    default void sendToTrackingPlayers(IChunk chunk, IPacket packet){
+        this.sendToTrackingPlayersExcept(chunk, packet, null);
+    }
+
+    /**
+     * Sends a packet to all players that have the chunk at the specified
+     * world coordinates loaded, if that chunk is loaded at all
+     *
+     * @param world  The world
+     * @param x      The x coordinate
+     * @param y      The y coordinate
+     * @param packet The packet
+     */
+    default void sendToTrackingPlayers(IWorld world, double x, double y, IPacket packet){
+        if(world.isPosLoaded(Util.floor(x), Util.floor(y))){
+            this.sendToTrackingPlayers(world.getChunk(x, y), packet);
+        }
+    }
+
+    default void sendToTrackingPlayersExcept(IChunk chunk, IPacket packet, Entity except){
+        //Players that have left the range still have the chunk loaded until their timer runs out
+        for(AbstractEntityPlayer player : chunk.getPlayersInRange()){
+            if(player != except){
+                player.sendPacket(packet);
+            }
+        }
+        for(AbstractEntityPlayer player : chunk.getPlayersLeftRange()){
+            if(player != except){
+                player.sendPacket(packet);
+            }
+        }
+    }
+
+    /**
+     * @return The batcher that packets sent by this handler are queued in until the end of the tick
+     */
+    PacketBatcher getBatcher();
+
+    /**
+     * Sends all packets that were queued during this tick
+     * <br> This is called by the game at the end of every tick, so mods
+     * only need to call it when they need packets to leave early
+     */
+    default void flush(){
+        this.getBatcher().flush();
+    }
+
+    /**
+     * @return The metrics of the packets that this handler sends and receives
+     */
+    PacketMetrics getMetrics();
+
     void init(String ip, int port, boolean isServer) throws Exception;
 
     void shutdown();
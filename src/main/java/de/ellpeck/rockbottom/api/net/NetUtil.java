@@ -18,42 +18,178 @@
 
 package de.ellpeck.rockbottom.api.net;
 
-import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.DataSetFormat;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
-import io.netty.buffer.ByteBufOutputStream;
-import org.newdawn.slick.util.Log;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
 
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helpers for writing data to and reading it from network buffers
+ * <br> Data that can't be read because it is malformed causes a {@link DecoderException}
+ */
 public final class NetUtil{
 
+    public static final int MAX_STRING_BYTES = 32767;
+
+    /**
+     * Writes the specified {@link DataSet} straight into the specified buffer
+     * using {@link DataSetFormat#writeSet(ByteBuf, DataSet)}
+     *
+     * @param set The set
+     * @param buf The buffer
+     * @throws EncoderException If one of the parts of the set can't be written
+     */
     public static void writeSetToBuffer(DataSet set, ByteBuf buf){
         try{
-            RockBottomAPI.getApiHandler().writeSet(new ByteBufOutputStream(buf), set);
+            DataSetFormat.writeSet(buf, set);
+        }
+        catch(EncoderException e){
+            throw e;
         }
         catch(Exception e){
-            Log.error("Couldn't write data set to buffer", e);
+            throw new EncoderException("Couldn't write data set to buffer", e);
         }
     }
 
+    /**
+     * Reads a {@link DataSet} that was written using {@link #writeSetToBuffer(DataSet, ByteBuf)}
+     *
+     * @param set The set to read into
+     * @param buf The buffer
+     * @throws DecoderException If the set can't be read
+     */
     public static void readSetFromBuffer(DataSet set, ByteBuf buf){
         try{
-            RockBottomAPI.getApiHandler().readSet(new ByteBufInputStream(buf), set);
+            DataSetFormat.readSet(buf, set, false);
+        }
+        catch(DecoderException e){
+            throw e;
         }
         catch(Exception e){
-            Log.error("Couldn't read data set from buffer", e);
+            throw new DecoderException("Couldn't read data set from buffer", e);
         }
     }
 
+    /**
+     * Writes a string as its length in bytes as a variable length int, followed by its UTF-8 bytes
+     *
+     * @param s   The string
+     * @param buf The buffer
+     * @throws IllegalArgumentException If the string takes up more than {@link #MAX_STRING_BYTES}
+     */
     public static void writeStringToBuffer(String s, ByteBuf buf){
-        buf.writeInt(s.length());
+        int length = getUtf8Length(s);
+        if(length >= 0){
+            checkStringLength(length);
+            buf.ensureWritable(getVarIntSize(length)+length);
+
+            writeVarInt(length, buf);
+            buf.writeCharSequence(s, StandardCharsets.UTF_8);
+        }
+        else{
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            checkStringLength(bytes.length);
+
+            writeVarInt(bytes.length, buf);
+            buf.writeBytes(bytes);
+        }
+    }
 
-        for(char c : s.toCharArray()){
-            buf.writeChar(c);
+    private static void checkStringLength(int length){
+        if(length > MAX_STRING_BYTES){
+            throw new IllegalArgumentException("String with "+length+" bytes is longer than the maximum of "+MAX_STRING_BYTES);
         }
     }
 
     public static String readStringFromBuffer(ByteBuf buf){
+        return readStringFromBuffer(buf, MAX_STRING_BYTES);
+    }
+
+    /**
+     * Reads a string that was written using {@link #writeStringToBuffer(String, ByteBuf)}
+     *
+     * @param buf      The buffer
+     * @param maxBytes The maximum amount of bytes the string may take up
+     * @return The string
+     * @throws DecoderException If the string is longer than allowed or than the buffer
+     */
+    public static String readStringFromBuffer(ByteBuf buf, int maxBytes){
+        int length = readVarInt(buf);
+        if(length < 0 || length > maxBytes){
+            throw new DecoderException("String with "+length+" bytes is longer than the maximum of "+maxBytes);
+        }
+        if(length > buf.readableBytes()){
+            throw new DecoderException("String with "+length+" bytes is longer than the remaining "+buf.readableBytes()+" bytes");
+        }
+
+        String s;
+        if(buf.hasArray()){
+            s = new String(buf.array(), buf.arrayOffset()+buf.readerIndex(), length, StandardCharsets.UTF_8);
+        }
+        else{
+            byte[] bytes = new byte[length];
+            buf.getBytes(buf.readerIndex(), bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buf.skipBytes(length);
+        return s;
+    }
+
+    /**
+     * Calculates the amount of bytes that the specified string takes up when encoded as UTF-8
+     * <br> Strings with surrogate chars are encoded differently depending on whether the
+     * surrogates are paired up, so -1 is returned for them
+     */
+    private static int getUtf8Length(CharSequence s){
+        int length = s.length();
+        int bytes = length;
+
+        for(int i = 0; i < length; i++){
+            char c = s.charAt(i);
+            if(c >= 0x80){
+                if(c < 0x800){
+                    bytes++;
+                }
+                else if(Character.isSurrogate(c)){
+                    return -1;
+                }
+                else{
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a string the way {@link #writeStringToBuffer(String, ByteBuf)} used to,
+     * as an int length followed by two bytes per char
+     *
+     * @param s   The string
+     * @param buf The buffer
+     * @deprecated Only for talking to clients and servers that don't use the
+     * UTF-8 encoding yet, use {@link #writeStringToBuffer(String, ByteBuf)} instead
+     */
+    @Deprecated
+    public static void writeLegacyStringToBuffer(String s, ByteBuf buf){
+        buf.writeInt(s.length());
+
+        for(int i = 0; i < s.length(); i++){
+            buf.writeChar(s.charAt(i));
+        }
+    }
+
+    /**
+     * @param buf The buffer
+     * @return The string
+     * @deprecated Only for talking to clients and servers that don't use the
+     * UTF-8 encoding yet, use {@link #readStringFromBuffer(ByteBuf)} instead
+     */
+    @Deprecated
+    public static String readLegacyStringFromBuffer(ByteBuf buf){
         char[] chars = new char[buf.readInt()];
 
         for(int i = 0; i < chars.length; i++){
@@ -62,4 +198,71 @@ public final class NetUtil{
 
         return new String(chars);
     }
+
+    /**
+     * Writes an int using between one and five bytes, depending on its size
+     * <br> Small positive values take up the least space, negative values
+     * always take up five bytes
+     *
+     * @param value The value
+     * @param buf   The buffer
+     */
+    public static void writeVarInt(int value, ByteBuf buf){
+        while((value&~0x7F) != 0){
+            buf.writeByte((value&0x7F)|0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    /**
+     * @param value The value
+     * @return The amount of bytes that {@link #writeVarInt(int, ByteBuf)} writes for the value
+     */
+    public static int getVarIntSize(int value){
+        int size = 1;
+        while((value&~0x7F) != 0){
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Checks if the specified amount of elements, which has been read from the specified
+     * buffer, can actually fit into the bytes that are left in it
+     * <br> This should be used before allocating anything based on an amount that was
+     * received over the network or read from disk
+     *
+     * @param buf             The buffer
+     * @param amount          The amount of elements
+     * @param bytesPerElement The least amount of bytes that every element takes up
+     * @return The amount
+     * @throws DecoderException If the amount is negative or larger than what is left in the buffer
+     */
+    public static int checkAmount(ByteBuf buf, int amount, int bytesPerElement){
+        if(amount < 0 || (long)amount*bytesPerElement > buf.readableBytes()){
+            throw new DecoderException("Tried reading "+amount+" elements of "+bytesPerElement+" bytes each with only "+buf.readableBytes()+" bytes left");
+        }
+        return amount;
+    }
+
+    public static int readVarInt(ByteBuf buf){
+        int value = 0;
+        int shift = 0;
+
+        byte b;
+        do{
+            if(shift >= 35){
+                throw new DecoderException("Variable length int is too long");
+            }
+
+            b = buf.readByte();
+            value |= (b&0x7F) << shift;
+            shift += 7;
+        }
+        while((b&0x80) != 0);
+
+        return value;
+    }
 }
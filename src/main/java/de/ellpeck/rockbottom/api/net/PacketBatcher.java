@@ -0,0 +1,111 @@
+/*
+ * This file ("PacketBatcher.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.ChannelMatcher;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Queues outbound packets per {@link Channel} during a tick and flushes every
+ * channel once when {@link #flush()} is called at the end of the tick, so that
+ * all of the packets of a tick leave in as few writes as possible
+ * <br> Packets whose {@link IPacket#isUrgent()} returns true are flushed right
+ * away, together with any packets that were queued on their channel before them,
+ * so the order of packets on a channel never changes
+ * <br> Channels that have a {@link PacketScheduler} only keep the order of
+ * packets that have the same {@link PacketPriority}
+ */
+public class PacketBatcher{
+
+    private final Set<Channel> pendingChannels = ConcurrentHashMap.newKeySet();
+    private volatile boolean batching = true;
+
+    /**
+     * Sends the specified packet to the specified channel
+     * <br> A {@link io.netty.util.ReferenceCounted} packet, like a
+     * {@link de.ellpeck.rockbottom.api.net.packet.PooledPacket}, is retained
+     * for the channel, so the caller still needs to release its own reference
+     *
+     * @param channel The channel
+     * @param packet  The packet
+     */
+    public void send(Channel channel, IPacket packet){
+        ReferenceCountUtil.retain(packet);
+
+        if(this.batching && !packet.isUrgent()){
+            channel.write(packet, channel.voidPromise());
+            this.pendingChannels.add(channel);
+        }
+        else{
+            channel.writeAndFlush(packet, channel.voidPromise());
+        }
+    }
+
+    /**
+     * Sends the specified packet to all channels of the specified group that match
+     *
+     * @param group   The group
+     * @param packet  The packet
+     * @param matcher The matcher that decides which channels to send to
+     */
+    public void send(ChannelGroup group, IPacket packet, ChannelMatcher matcher){
+        for(Channel channel : group){
+            if(matcher.matches(channel)){
+                this.send(channel, packet);
+            }
+        }
+    }
+
+    /**
+     * Flushes all channels that packets have been queued on since the last flush
+     * <br> This is supposed to be called once at the end of every tick
+     */
+    public void flush(){
+        if(!this.pendingChannels.isEmpty()){
+            for(Channel channel : this.pendingChannels){
+                this.pendingChannels.remove(channel);
+                channel.flush();
+            }
+        }
+    }
+
+    /**
+     * Sets if packets should be queued until {@link #flush()} is called or be
+     * sent right away, which flushes everything that is currently queued
+     *
+     * @param batching If packets should be queued
+     */
+    public void setBatching(boolean batching){
+        this.batching = batching;
+
+        if(!batching){
+            this.flush();
+        }
+    }
+
+    public boolean isBatching(){
+        return this.batching;
+    }
+}
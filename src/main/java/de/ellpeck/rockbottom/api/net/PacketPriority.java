@@ -0,0 +1,65 @@
+/*
+ * This file ("PacketPriority.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+/**
+ * The classes that outbound packets are sorted into by a {@link PacketScheduler}
+ * <br> Classes are sent in the order they are declared in, and each one can only
+ * send a limited amount of bytes every tick, so that bulk data like chunks can't
+ * hold back packets that are time-critical
+ * <br> The order of packets is only kept inside of a class, so packets that
+ * depend on each other need to have the same priority
+ */
+public enum PacketPriority{
+
+    /**
+     * Connection state and anything else that needs to arrive right away
+     * <br> This class has no budget and is never held back
+     */
+    CONTROL(-1),
+    /**
+     * Time-critical packets that don't depend on packets of any other class,
+     * like the movement that a client sends for its own player
+     * <br> The movement of other entities is sent as {@link #WORLD}, as it needs
+     * to arrive after the entity was spawned and before it is removed
+     */
+    MOVEMENT(4096),
+    /**
+     * Changes to the world, like tiles, tile entities and entities spawning,
+     * moving and dying
+     */
+    WORLD(8192),
+    /**
+     * Large amounts of data that can arrive late, like chunks
+     */
+    BULK(16384);
+
+    private final int defaultBudget;
+
+    PacketPriority(int defaultBudget){
+        this.defaultBudget = defaultBudget;
+    }
+
+    /**
+     * @return The amount of bytes that this class can send every tick by default, or -1 if it is unlimited
+     */
+    public int getDefaultBudget(){
+        return this.defaultBudget;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * This file ("PacketReader.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.util.Util;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.DecoderException;
+
+import java.util.UUID;
+
+/**
+ * A helper for reading packet fields that were written using a {@link PacketWriter}
+ */
+public class PacketReader{
+
+    private final ByteBuf buf;
+
+    private int bitAmount = 8;
+    private int bits;
+
+    public PacketReader(ByteBuf buf){
+        this.buf = buf;
+    }
+
+    public ByteBuf getBuffer(){
+        return this.buf;
+    }
+
+    public byte readByte(){
+        return this.buf.readByte();
+    }
+
+    public int readInt(){
+        return this.buf.readInt();
+    }
+
+    public long readLong(){
+        return this.buf.readLong();
+    }
+
+    public float readFloat(){
+        return this.buf.readFloat();
+    }
+
+    public double readDouble(){
+        return this.buf.readDouble();
+    }
+
+    public int readVarInt(){
+        return NetUtil.readVarInt(this.buf);
+    }
+
+    public long readVarLong(){
+        long value = 0L;
+        int shift = 0;
+
+        byte b;
+        do{
+            if(shift >= 70){
+                throw new DecoderException("Variable length long is too long");
+            }
+
+            b = this.buf.readByte();
+            value |= (long)(b&0x7F) << shift;
+            shift += 7;
+        }
+        while((b&0x80) != 0);
+
+        return value;
+    }
+
+    public int readZigZagInt(){
+        int value = this.readVarInt();
+        return (value >>> 1)^-(value&1);
+    }
+
+    public long readZigZagLong(){
+        long value = this.readVarLong();
+        return (value >>> 1)^-(value&1L);
+    }
+
+    public boolean readBoolean(){
+        if(this.bitAmount >= 8){
+            this.bits = this.buf.readUnsignedByte();
+            this.bitAmount = 0;
+        }
+
+        boolean value = (this.bits&(1 << this.bitAmount)) != 0;
+        this.bitAmount++;
+        return value;
+    }
+
+    public double readFixed(int precision){
+        return (double)this.readZigZagLong()/precision;
+    }
+
+    public double readWorldPos(){
+        int gridPos = this.readZigZagInt();
+        int local = this.buf.readUnsignedShort();
+        return Util.toWorldPos(gridPos)+(double)local/PacketWriter.POS_PRECISION;
+    }
+
+    public int readDeltaInt(int previous){
+        return previous+this.readZigZagInt();
+    }
+
+    public double readDeltaFixed(double previous, int precision){
+        return (double)(Math.round(previous*precision)+this.readZigZagLong())/precision;
+    }
+
+    public String readString(){
+        return NetUtil.readStringFromBuffer(this.buf);
+    }
+
+    public UUID readUniqueId(){
+        return new UUID(this.buf.readLong(), this.buf.readLong());
+    }
+
+    public DataSet readDataSet(){
+        DataSet set = new DataSet();
+        NetUtil.readSetFromBuffer(set, this.buf);
+        return set;
+    }
+
+    /**
+     * Reads bytes that were written using {@link PacketWriter#writeBytes(ByteBuf)}
+     *
+     * @return A slice of the underlying buffer containing the bytes
+     */
+    public ByteBuf readBytes(){
+        return this.buf.readSlice(this.readVarInt());
+    }
+}
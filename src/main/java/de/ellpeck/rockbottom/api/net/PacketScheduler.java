@@ -0,0 +1,377 @@
+/*
+ * This file ("PacketScheduler.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorts the packets that are sent to a channel into the classes of
+ * {@link PacketPriority} and sends them in that order when the channel is flushed
+ * <br> Every class except {@link PacketPriority#CONTROL} has a budget of bytes
+ * that it can send every tick. Packets that exceed it stay queued until a later
+ * tick, unless they have been waiting for {@link #MAX_WAIT_TICKS} already. While
+ * the channel isn't writable, nothing but {@link PacketPriority#CONTROL} is sent.
+ * <br> Packets that have an {@link IPacket#getOrderKey()} wait for the packets with an
+ * equal key that were written before them, even if those are in another class.
+ * <br> The scheduler needs to be the last handler of the pipeline, see
+ * {@link #install(ChannelPipeline)}, and only sees packets that are written to
+ * the {@link Channel} rather than to a {@link ChannelHandlerContext}
+ */
+public class PacketScheduler extends ChannelDuplexHandler{
+
+    public static final String NAME = "scheduler";
+    public static final int MAX_WAIT_TICKS = 20;
+
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1)/Constants.TARGET_TPS;
+    private static final PacketPriority[] PRIORITIES = PacketPriority.values();
+
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private final Map<Object, ArrayDeque<Entry>> ordered = new HashMap<>();
+    private long written;
+    private ChannelHandlerContext context;
+    private ScheduledFuture<?> drainTask;
+    private long lastRefill;
+
+    public PacketScheduler(){
+        for(int i = 0; i < this.lanes.length; i++){
+            this.lanes[i] = new Lane(PRIORITIES[i].getDefaultBudget());
+        }
+    }
+
+    /**
+     * Adds a scheduler to the end of the specified pipeline
+     *
+     * @param pipeline The pipeline
+     * @return The scheduler
+     */
+    public static PacketScheduler install(ChannelPipeline pipeline){
+        PacketScheduler scheduler = new PacketScheduler();
+        pipeline.addLast(NAME, scheduler);
+        return scheduler;
+    }
+
+    /**
+     * @param channel The channel
+     * @return The scheduler of the specified channel, or null if it doesn't have one
+     */
+    public static PacketScheduler get(Channel channel){
+        return (PacketScheduler)channel.pipeline().get(NAME);
+    }
+
+    /**
+     * Sets the amount of bytes that packets of the specified priority can send every tick
+     *
+     * @param priority The priority
+     * @param budget   The budget in bytes, or a negative value for no limit
+     */
+    public void setBudget(PacketPriority priority, int budget){
+        this.lanes[priority.ordinal()].budget = budget;
+    }
+
+    public int getBudget(PacketPriority priority){
+        return this.lanes[priority.ordinal()].budget;
+    }
+
+    /**
+     * @param priority The priority
+     * @return The amount of packets of the specified priority that are currently waiting to be sent
+     */
+    public int getQueueSize(PacketPriority priority){
+        return this.lanes[priority.ordinal()].queueSize;
+    }
+
+    /**
+     * @param priority The priority
+     * @return The amount of packets of the specified priority that have been sent
+     */
+    public long getSentPackets(PacketPriority priority){
+        return this.lanes[priority.ordinal()].sentPackets;
+    }
+
+    /**
+     * @param priority The priority
+     * @return The amount of bytes that packets of the specified priority have taken up once encoded,
+     * including the small overhead that netty adds to every write
+     */
+    public long getSentBytes(PacketPriority priority){
+        return this.lanes[priority.ordinal()].sentBytes;
+    }
+
+    /**
+     * @param priority The priority
+     * @return The average time in milliseconds that packets of the specified priority have spent queued
+     */
+    public double getAverageLatency(PacketPriority priority){
+        Lane lane = this.lanes[priority.ordinal()];
+        long packets = lane.sentPackets;
+        return packets > 0 ? (double)lane.totalLatency/packets/TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    /**
+     * @param priority The priority
+     * @return The longest time in milliseconds that a packet of the specified priority has spent queued
+     */
+    public double getMaxLatency(PacketPriority priority){
+        return (double)this.lanes[priority.ordinal()].maxLatency/TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception{
+        this.context = ctx;
+        this.lastRefill = System.nanoTime();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception{
+        if(this.drainTask != null){
+            this.drainTask.cancel(false);
+            this.drainTask = null;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for(Lane lane : this.lanes){
+            while(!lane.queue.isEmpty()){
+                entries.add(lane.poll());
+            }
+        }
+        this.ordered.clear();
+
+        //Everything is written at once, so the order they were written in is kept
+        entries.sort(Comparator.comparingLong(entry -> entry.index));
+
+        boolean active = ctx.channel().isActive();
+        for(Entry entry : entries){
+            if(active){
+                ctx.write(entry.packet, entry.promise);
+            }
+            else{
+                ReferenceCountUtil.release(entry.packet);
+                if(!entry.promise.isVoid()){
+                    entry.promise.tryFailure(new ClosedChannelException());
+                }
+            }
+        }
+
+        if(active){
+            ctx.flush();
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception{
+        if(msg instanceof IPacket){
+            PacketPriority priority = ((IPacket)msg).getPriority();
+            Lane lane = this.lanes[priority.ordinal()];
+
+            if(priority == PacketPriority.CONTROL){
+                lane.record(this.writeMeasured(msg, promise), 0);
+            }
+            else{
+                Entry entry = new Entry((IPacket)msg, promise, System.nanoTime(), ((IPacket)msg).getOrderKey(), this.written++);
+                if(entry.key != null){
+                    this.ordered.computeIfAbsent(entry.key, key -> new ArrayDeque<>()).add(entry);
+                }
+                lane.add(entry);
+            }
+        }
+        else{
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception{
+        this.drain();
+        ctx.flush();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception{
+        if(ctx.channel().isWritable()){
+            this.drain();
+            ctx.flush();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    private void drain(){
+        long time = System.nanoTime();
+        this.refill(time);
+
+        boolean writable = this.context.channel().isWritable();
+        boolean repeat;
+
+        do{
+            boolean blocked = false;
+            boolean sent = false;
+
+            for(Lane lane : this.lanes){
+                while(!lane.queue.isEmpty()){
+                    Entry entry = lane.queue.peek();
+                    boolean starving = time-entry.time >= MAX_WAIT_TICKS*TICK_NANOS;
+                    if(!writable || (!starving && lane.budget >= 0 && lane.tokens <= 0)){
+                        break;
+                    }
+
+                    //Wait for an older packet with the same key in another class
+                    if(entry.key != null && this.ordered.get(entry.key).peek() != entry){
+                        blocked = true;
+                        break;
+                    }
+
+                    lane.poll();
+                    this.removeOrdered(entry);
+
+                    int bytes = this.writeMeasured(entry.packet, entry.promise);
+                    lane.tokens -= bytes;
+                    lane.record(bytes, time-entry.time);
+                    sent = true;
+
+                    writable = this.context.channel().isWritable();
+                }
+            }
+
+            //A class that was waiting might be able to continue now that a later one has sent something
+            repeat = blocked && sent;
+        }
+        while(repeat);
+
+        boolean remaining = false;
+        for(Lane lane : this.lanes){
+            if(!lane.queue.isEmpty()){
+                remaining = true;
+                break;
+            }
+        }
+
+        //Deferred packets need to be sent even if nothing else is written to the channel
+        if(remaining && this.drainTask == null){
+            this.drainTask = this.context.executor().schedule(() -> {
+                this.drainTask = null;
+                this.drain();
+                this.context.flush();
+            }, TICK_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void removeOrdered(Entry entry){
+        if(entry.key != null){
+            ArrayDeque<Entry> entries = this.ordered.get(entry.key);
+            entries.poll();
+            if(entries.isEmpty()){
+                this.ordered.remove(entry.key);
+            }
+        }
+    }
+
+    private void refill(long time){
+        double ticks = (double)(time-this.lastRefill)/TICK_NANOS;
+        this.lastRefill = time;
+
+        for(Lane lane : this.lanes){
+            if(lane.budget >= 0){
+                lane.tokens = Math.min(lane.budget, lane.tokens+lane.budget*ticks);
+            }
+        }
+    }
+
+    private int writeMeasured(Object msg, ChannelPromise promise){
+        //Encoding happens while the message is passed down the pipeline, so the pending bytes grow by its encoded size
+        ChannelOutboundBuffer buffer = this.context.channel().unsafe().outboundBuffer();
+        long before = buffer != null ? buffer.totalPendingWriteBytes() : 0;
+
+        this.context.write(msg, promise);
+
+        return buffer != null ? (int)Math.max(0, buffer.totalPendingWriteBytes()-before) : 0;
+    }
+
+    private static final class Entry{
+
+        private final IPacket packet;
+        private final ChannelPromise promise;
+        private final long time;
+        private final Object key;
+        private final long index;
+
+        private Entry(IPacket packet, ChannelPromise promise, long time, Object key, long index){
+            this.packet = packet;
+            this.promise = promise;
+            this.time = time;
+            this.key = key;
+            this.index = index;
+        }
+    }
+
+    private static final class Lane{
+
+        private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+        private volatile int budget;
+        private double tokens;
+
+        //Only written on the event loop, but read from anywhere
+        private volatile int queueSize;
+        private volatile long sentPackets;
+        private volatile long sentBytes;
+        private volatile long totalLatency;
+        private volatile long maxLatency;
+
+        private Lane(int budget){
+            this.budget = budget;
+            this.tokens = Math.max(0, budget);
+        }
+
+        private void add(Entry entry){
+            this.queue.add(entry);
+            this.queueSize = this.queue.size();
+        }
+
+        private Entry poll(){
+            Entry entry = this.queue.poll();
+            this.queueSize = this.queue.size();
+            return entry;
+        }
+
+        private void record(int bytes, long latency){
+            this.sentPackets++;
+            this.sentBytes += bytes;
+            this.totalLatency += latency;
+            if(latency > this.maxLatency){
+                this.maxLatency = latency;
+            }
+        }
+    }
+}
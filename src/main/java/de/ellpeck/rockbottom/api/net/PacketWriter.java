@@ -0,0 +1,227 @@
+/*
+ * This file ("PacketWriter.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.util.Util;
+import io.netty.buffer.ByteBuf;
+
+import java.util.UUID;
+
+/**
+ * A helper for writing compact packet fields to a {@link ByteBuf}
+ * <br> Everything written by this needs to be read back in the same order
+ * using the matching methods of a {@link PacketReader}
+ */
+public class PacketWriter{
+
+    /**
+     * The amount of steps that a tile is split into by {@link #writeWorldPos(double)}
+     */
+    public static final int POS_PRECISION = 1024;
+
+    private final ByteBuf buf;
+
+    private int bitIndex = -1;
+    private int bitAmount;
+    private int bits;
+
+    public PacketWriter(ByteBuf buf){
+        this.buf = buf;
+    }
+
+    public ByteBuf getBuffer(){
+        return this.buf;
+    }
+
+    public PacketWriter writeByte(int value){
+        this.buf.writeByte(value);
+        return this;
+    }
+
+    public PacketWriter writeInt(int value){
+        this.buf.writeInt(value);
+        return this;
+    }
+
+    public PacketWriter writeLong(long value){
+        this.buf.writeLong(value);
+        return this;
+    }
+
+    public PacketWriter writeFloat(float value){
+        this.buf.writeFloat(value);
+        return this;
+    }
+
+    public PacketWriter writeDouble(double value){
+        this.buf.writeDouble(value);
+        return this;
+    }
+
+    /**
+     * Writes an int using between one and five bytes
+     * <br> Use this for values that are usually small and never negative, like lengths
+     *
+     * @param value The value
+     * @return This writer
+     */
+    public PacketWriter writeVarInt(int value){
+        NetUtil.writeVarInt(value, this.buf);
+        return this;
+    }
+
+    public PacketWriter writeVarLong(long value){
+        while((value&~0x7FL) != 0L){
+            this.buf.writeByte((int)(value&0x7F)|0x80);
+            value >>>= 7;
+        }
+        this.buf.writeByte((int)value);
+        return this;
+    }
+
+    /**
+     * Writes an int using between one and five bytes, where values close to
+     * zero take up the least space regardless of their sign
+     * <br> Use this for values that are usually small, like coordinates
+     *
+     * @param value The value
+     * @return This writer
+     */
+    public PacketWriter writeZigZagInt(int value){
+        return this.writeVarInt((value << 1)^(value >> 31));
+    }
+
+    public PacketWriter writeZigZagLong(long value){
+        return this.writeVarLong((value << 1)^(value >> 63));
+    }
+
+    /**
+     * Writes a boolean as a single bit
+     * <br> Up to eight booleans written after one another share one byte,
+     * even if other values are written in between them
+     *
+     * @param value The value
+     * @return This writer
+     */
+    public PacketWriter writeBoolean(boolean value){
+        if(this.bitIndex < 0 || this.bitAmount >= 8){
+            this.bitIndex = this.buf.writerIndex();
+            this.bitAmount = 0;
+            this.bits = 0;
+            this.buf.writeByte(0);
+        }
+
+        if(value){
+            this.bits |= 1 << this.bitAmount;
+            this.buf.setByte(this.bitIndex, this.bits);
+        }
+        this.bitAmount++;
+        return this;
+    }
+
+    /**
+     * Writes a decimal value as a fixed-point number with the specified
+     * amount of steps per unit, losing everything finer than that
+     *
+     * @param value     The value
+     * @param precision The amount of steps per unit
+     * @return This writer
+     */
+    public PacketWriter writeFixed(double value, int precision){
+        return this.writeZigZagLong(Math.round(value*precision));
+    }
+
+    /**
+     * Writes a world position as the chunk it is in followed by its
+     * position inside of the chunk, quantized to {@link #POS_PRECISION} steps per tile
+     *
+     * @param pos The world position
+     * @return This writer
+     */
+    public PacketWriter writeWorldPos(double pos){
+        int gridPos = Util.toGridPos(pos);
+        int local = (int)Math.round((pos-Util.toWorldPos(gridPos))*POS_PRECISION);
+
+        if(local >= Constants.CHUNK_SIZE*POS_PRECISION){
+            gridPos++;
+            local = 0;
+        }
+
+        this.writeZigZagInt(gridPos);
+        this.buf.writeShort(local);
+        return this;
+    }
+
+    /**
+     * Writes the difference between a value and the value that was written
+     * for the same field previously, which the reader needs to know as well
+     *
+     * @param value    The value
+     * @param previous The previously written value
+     * @return This writer
+     */
+    public PacketWriter writeDeltaInt(int value, int previous){
+        return this.writeZigZagInt(value-previous);
+    }
+
+    /**
+     * Writes the difference between a decimal value and the value that was written
+     * for the same field previously as a fixed-point number, see {@link #writeFixed(double, int)}
+     * <br> To avoid errors adding up, the previous value should be the one that the
+     * reader ended up with rather than the exact one
+     *
+     * @param value     The value
+     * @param previous  The previously written value
+     * @param precision The amount of steps per unit
+     * @return This writer
+     */
+    public PacketWriter writeDeltaFixed(double value, double previous, int precision){
+        return this.writeZigZagLong(Math.round(value*precision)-Math.round(previous*precision));
+    }
+
+    public PacketWriter writeString(String s){
+        NetUtil.writeStringToBuffer(s, this.buf);
+        return this;
+    }
+
+    public PacketWriter writeUniqueId(UUID id){
+        this.buf.writeLong(id.getMostSignificantBits());
+        this.buf.writeLong(id.getLeastSignificantBits());
+        return this;
+    }
+
+    public PacketWriter writeDataSet(DataSet set){
+        NetUtil.writeSetToBuffer(set, this.buf);
+        return this;
+    }
+
+    /**
+     * Writes the readable bytes of the specified buffer prefixed with their amount
+     *
+     * @param bytes The buffer
+     * @return This writer
+     */
+    public PacketWriter writeBytes(ByteBuf bytes){
+        this.writeVarInt(bytes.readableBytes());
+        this.buf.writeBytes(bytes, bytes.readerIndex(), bytes.readableBytes());
+        return this;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file ("CommandNetStats.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.chat;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.assets.IAssetManager;
+import de.ellpeck.rockbottom.api.entity.player.AbstractEntityPlayer;
+import de.ellpeck.rockbottom.api.net.INetHandler;
+import de.ellpeck.rockbottom.api.net.metrics.ClientMetrics;
+import de.ellpeck.rockbottom.api.net.metrics.PacketMetrics;
+import de.ellpeck.rockbottom.api.net.metrics.PacketTypeMetrics;
+import de.ellpeck.rockbottom.api.net.metrics.TimeHistogram;
+import io.netty.channel.Channel;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shows the {@link PacketMetrics} of the server in chat
+ * <br> Without arguments, the packets that take up the most bandwidth are shown,
+ * {@code clients} shows the totals of every client and {@code reset} resets the metrics
+ */
+public class CommandNetStats extends Command{
+
+    private static final int SHOWN_PACKETS = 8;
+
+    public CommandNetStats(){
+        super("netstats", "Shows which packets take up the most bandwidth and time. Params: [clients|reset]", 5);
+    }
+
+    @Override
+    public String execute(String[] args, AbstractEntityPlayer player, String playerName, IGameInstance game, IAssetManager manager, IChatLog chat){
+        INetHandler net = RockBottomAPI.getNet();
+        PacketMetrics metrics = net.getMetrics();
+
+        if(args.length > 0 && "reset".equals(args[0])){
+            metrics.reset();
+            return "Reset packet metrics";
+        }
+        else if(args.length > 0 && "clients".equals(args[0])){
+            for(Channel channel : net.getConnectedClients()){
+                ClientMetrics client = metrics.getClient(channel);
+                if(client != null){
+                    send(chat, player, channel.remoteAddress()+": out "+client.getPacketsOut()+" ("+formatBytes(client.getBytesOut())+"), in "+client.getPacketsIn()+" ("+formatBytes(client.getBytesIn())+")");
+                }
+            }
+            return "Showing "+net.getConnectedClients().size()+" clients";
+        }
+        else{
+            List<PacketTypeMetrics> types = metrics.getAll();
+            types.sort(Comparator.comparingLong(type -> -(type.getBytesOut()+type.getBytesIn())));
+
+            for(int i = 0; i < Math.min(SHOWN_PACKETS, types.size()); i++){
+                PacketTypeMetrics type = types.get(i);
+                send(chat, player, PacketMetrics.getName(type.getId())+": out "+type.getPacketsOut()+" ("+formatBytes(type.getBytesOut())+", enc "+formatTime(type.getEncodeTime())+"), in "+type.getPacketsIn()+" ("+formatBytes(type.getBytesIn())+", dec "+formatTime(type.getDecodeTime())+", handle "+formatTime(type.getHandleLatency())+")");
+            }
+            return "Showing "+Math.min(SHOWN_PACKETS, types.size())+" of "+types.size()+" packet types";
+        }
+    }
+
+    private static void send(IChatLog chat, AbstractEntityPlayer player, String message){
+        if(player != null){
+            chat.sendMessageToPlayer(player, message);
+        }
+        else{
+            chat.displayMessage(message);
+        }
+    }
+
+    private static String formatBytes(long bytes){
+        if(bytes >= 1024*1024){
+            return String.format("%.1fMiB", bytes/(1024D*1024D));
+        }
+        else if(bytes >= 1024){
+            return String.format("%.1fKiB", bytes/1024D);
+        }
+        else{
+            return bytes+"B";
+        }
+    }
+
+    private static String formatTime(TimeHistogram histogram){
+        if(histogram.getCount() <= 0){
+            return "-";
+        }
+        else{
+            return "p50 "+formatNanos(histogram.getPercentile(0.5))+"/p99 "+formatNanos(histogram.getPercentile(0.99));
+        }
+    }
+
+    private static String formatNanos(long nanos){
+        if(nanos >= 1000000){
+            return nanos/1000000+"ms";
+        }
+        else if(nanos >= 1000){
+            return nanos/1000+"us";
+        }
+        else{
+            return nanos+"ns";
+        }
+    }
+}
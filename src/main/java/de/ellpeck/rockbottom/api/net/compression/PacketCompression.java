@@ -0,0 +1,217 @@
+/*
+ * This file ("PacketCompression.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.compression;
+
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.net.packet.toclient.PacketCompressionThreshold;
+import de.ellpeck.rockbottom.api.net.packet.toserver.PacketCompressionAck;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compresses frames that are larger than a threshold
+ * <br> The handlers are placed between the frame handlers and the packet handlers
+ * of a pipeline, which is why the game needs to name its frame decoder and frame
+ * encoder {@link #FRAME_DECODER} and {@link #FRAME_ENCODER}
+ * <br> Compression is negotiated when a client joins, separately for each direction:
+ * The server sends a {@link PacketCompressionThreshold} using {@link #sendThreshold(Channel, int)}
+ * and compresses everything it sends after that. When the client handles the packet, it
+ * starts decompressing, answers with a {@link PacketCompressionAck} and compresses everything
+ * it sends after that. When the server handles the answer, it starts decompressing.
+ * <br> For this to work, both packets need to be handled on the channel's event loop while
+ * they are being decoded, before the next frame is decoded.
+ */
+public final class PacketCompression{
+
+    public static final String FRAME_DECODER = "frame_decoder";
+    public static final String FRAME_ENCODER = "frame_encoder";
+    public static final String COMPRESSOR = "compressor";
+    public static final String DECOMPRESSOR = "decompressor";
+
+    public static final int DEFAULT_THRESHOLD = 256;
+    public static final int MAX_FRAME_SIZE = 1 << 23;
+
+    private static final LongAdder RAW_BYTES = new LongAdder();
+    private static final LongAdder COMPRESSED_BYTES = new LongAdder();
+
+    /**
+     * Enables compression for the specified pipeline in both directions, or changes
+     * its threshold if it is already enabled
+     * <br> This should only be used when both sides of the connection change their
+     * pipeline at the same point, otherwise use {@link #sendThreshold(Channel, int)}
+     *
+     * @param pipeline  The pipeline
+     * @param threshold The size in bytes from which on frames are compressed,
+     *                  or a negative value to disable compression
+     */
+    public static void setThreshold(ChannelPipeline pipeline, int threshold){
+        if(threshold < 0){
+            if(pipeline.get(COMPRESSOR) != null){
+                pipeline.remove(COMPRESSOR);
+            }
+            if(pipeline.get(DECOMPRESSOR) != null){
+                pipeline.remove(DECOMPRESSOR);
+            }
+        }
+        else{
+            PacketCompressor compressor = (PacketCompressor)pipeline.get(COMPRESSOR);
+            if(compressor != null){
+                compressor.setThreshold(threshold);
+            }
+            else{
+                pipeline.addAfter(FRAME_ENCODER, COMPRESSOR, new PacketCompressor(threshold));
+            }
+
+            if(pipeline.get(DECOMPRESSOR) == null){
+                pipeline.addAfter(FRAME_DECODER, DECOMPRESSOR, new PacketDecompressor());
+            }
+        }
+    }
+
+    /**
+     * Enables compression for the frames that the specified pipeline sends, or
+     * changes its threshold if it is already enabled
+     * <br> Frames that are received are not affected by this
+     *
+     * @param pipeline  The pipeline
+     * @param threshold The size in bytes from which on frames are compressed,
+     *                  or a negative value to disable compression
+     */
+    public static void setCompressor(ChannelPipeline pipeline, int threshold){
+        if(threshold < 0){
+            if(pipeline.get(COMPRESSOR) != null){
+                pipeline.remove(COMPRESSOR);
+            }
+        }
+        else{
+            PacketCompressor compressor = (PacketCompressor)pipeline.get(COMPRESSOR);
+            if(compressor != null){
+                compressor.setThreshold(threshold);
+            }
+            else{
+                pipeline.addAfter(FRAME_ENCODER, COMPRESSOR, new PacketCompressor(threshold));
+            }
+        }
+    }
+
+    /**
+     * Enables or disables decompression for the frames that the specified pipeline receives
+     * <br> Frames that are sent are not affected by this
+     *
+     * @param pipeline The pipeline
+     * @param enabled  If compressed frames should be read
+     */
+    public static void setDecompressor(ChannelPipeline pipeline, boolean enabled){
+        if(enabled){
+            if(pipeline.get(DECOMPRESSOR) == null){
+                pipeline.addAfter(FRAME_DECODER, DECOMPRESSOR, new PacketDecompressor());
+            }
+        }
+        else if(pipeline.get(DECOMPRESSOR) != null){
+            pipeline.remove(DECOMPRESSOR);
+        }
+    }
+
+    /**
+     * Tells the client on the other end of the specified channel about the
+     * compression threshold and starts compressing what is sent to it after that
+     * <br> Every frame that is encoded after the threshold packet is compressed,
+     * which is the same order that the client receives them in. Received frames
+     * are only decompressed once the client answers with a {@link PacketCompressionAck}.
+     *
+     * @param channel   The channel
+     * @param threshold The threshold, or a negative value to disable compression
+     */
+    public static void sendThreshold(Channel channel, int threshold){
+        sendAndSetCompressor(channel, new PacketCompressionThreshold(threshold), threshold);
+    }
+
+    /**
+     * Handles a {@link PacketCompressionThreshold} on the client by starting to
+     * decompress what the server sends, answering with a {@link PacketCompressionAck}
+     * and starting to compress what is sent to the server after that
+     *
+     * @param channel   The channel to the server
+     * @param threshold The threshold, or a negative value to disable compression
+     */
+    public static void receiveThreshold(Channel channel, int threshold){
+        setDecompressor(channel.pipeline(), threshold >= 0);
+        sendAndSetCompressor(channel, new PacketCompressionAck(threshold), threshold);
+    }
+
+    /**
+     * Handles a {@link PacketCompressionAck} on the server by starting to
+     * decompress what the client sends
+     *
+     * @param channel   The channel to the client
+     * @param threshold The threshold that the client acknowledged
+     */
+    public static void receiveAck(Channel channel, int threshold){
+        setDecompressor(channel.pipeline(), threshold >= 0);
+    }
+
+    private static void sendAndSetCompressor(Channel channel, IPacket packet, int threshold){
+        EventLoop loop = channel.eventLoop();
+        if(loop.inEventLoop()){
+            writeAndSetCompressor(channel, packet, threshold);
+        }
+        else{
+            loop.execute(() -> writeAndSetCompressor(channel, packet, threshold));
+        }
+    }
+
+    private static void writeAndSetCompressor(Channel channel, IPacket packet, int threshold){
+        //On the event loop, the packet is encoded right away, so changing the pipeline in the
+        //same task means that no other frame can be encoded between the packet and the change
+        ChannelFuture future = channel.writeAndFlush(packet);
+        if(future.cause() == null){
+            setCompressor(channel.pipeline(), threshold);
+        }
+    }
+
+    static void record(int rawBytes, int compressedBytes){
+        RAW_BYTES.add(rawBytes);
+        COMPRESSED_BYTES.add(compressedBytes);
+    }
+
+    /**
+     * @return The amount of bytes that frames which were compressed had before compression
+     */
+    public static long getRawBytes(){
+        return RAW_BYTES.sum();
+    }
+
+    /**
+     * @return The amount of bytes that frames which were compressed had after compression
+     */
+    public static long getCompressedBytes(){
+        return COMPRESSED_BYTES.sum();
+    }
+
+    /**
+     * @return The amount of bytes that compression has saved so far
+     */
+    public static long getBytesSaved(){
+        return getRawBytes()-getCompressedBytes();
+    }
+}
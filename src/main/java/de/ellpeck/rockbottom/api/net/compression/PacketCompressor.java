@@ -0,0 +1,86 @@
+/*
+ * This file ("PacketCompressor.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.compression;
+
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.util.zip.Deflater;
+
+/**
+ * Writes every frame as its uncompressed length followed by its compressed
+ * content, or as zero followed by its content if it is smaller than the threshold
+ * <br> Empty frames are never compressed, as they couldn't be told apart from
+ * frames that weren't compressed
+ */
+public class PacketCompressor extends MessageToByteEncoder<ByteBuf>{
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final byte[] buffer = new byte[8192];
+    private volatile int threshold;
+
+    public PacketCompressor(int threshold){
+        this.threshold = threshold;
+    }
+
+    public void setThreshold(int threshold){
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out){
+        int length = msg.readableBytes();
+
+        if(length == 0 || length < this.threshold){
+            NetUtil.writeVarInt(0, out);
+            out.writeBytes(msg);
+        }
+        else{
+            NetUtil.writeVarInt(length, out);
+            int start = out.writerIndex();
+
+            if(msg.hasArray()){
+                this.deflater.setInput(msg.array(), msg.arrayOffset()+msg.readerIndex(), length);
+            }
+            else{
+                byte[] input = new byte[length];
+                msg.getBytes(msg.readerIndex(), input);
+                this.deflater.setInput(input);
+            }
+            msg.skipBytes(length);
+
+            this.deflater.finish();
+            while(!this.deflater.finished()){
+                int amount = this.deflater.deflate(this.buffer);
+                out.writeBytes(this.buffer, 0, amount);
+            }
+            this.deflater.reset();
+
+            PacketCompression.record(length, out.writerIndex()-start);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception{
+        this.deflater.end();
+        super.handlerRemoved(ctx);
+    }
+}
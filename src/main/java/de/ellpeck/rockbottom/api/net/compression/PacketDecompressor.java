@@ -0,0 +1,86 @@
+/*
+ * This file ("PacketDecompressor.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.compression;
+
+import de.ellpeck.rockbottom.api.net.NetUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads frames that were written by a {@link PacketCompressor}
+ */
+public class PacketDecompressor extends MessageToMessageDecoder<ByteBuf>{
+
+    private final Inflater inflater = new Inflater();
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws DataFormatException{
+        int length = NetUtil.readVarInt(msg);
+
+        if(length == 0){
+            out.add(msg.readRetainedSlice(msg.readableBytes()));
+        }
+        else{
+            if(length > PacketCompression.MAX_FRAME_SIZE){
+                throw new DecoderException("Compressed frame of "+length+" bytes is larger than the maximum of "+PacketCompression.MAX_FRAME_SIZE);
+            }
+
+            int compressedLength = msg.readableBytes();
+            if(msg.hasArray()){
+                this.inflater.setInput(msg.array(), msg.arrayOffset()+msg.readerIndex(), compressedLength);
+            }
+            else{
+                byte[] input = new byte[compressedLength];
+                msg.getBytes(msg.readerIndex(), input);
+                this.inflater.setInput(input);
+            }
+            msg.skipBytes(compressedLength);
+
+            ByteBuf result = ctx.alloc().heapBuffer(length, length);
+            try{
+                int inflated = this.inflater.inflate(result.array(), result.arrayOffset(), length);
+                if(inflated != length || !this.inflater.finished()){
+                    throw new DecoderException("Compressed frame doesn't decompress to the "+length+" bytes it should have");
+                }
+                result.writerIndex(length);
+
+                out.add(result);
+                result = null;
+            }
+            finally{
+                this.inflater.reset();
+                if(result != null){
+                    result.release();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception{
+        this.inflater.end();
+        super.handlerRemoved(ctx);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * This file ("ClientMetrics.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The totals of all packets that were sent to and received from one channel,
+ * see {@link PacketMetrics#getClient(io.netty.channel.Channel)}
+ */
+public class ClientMetrics{
+
+    final LongAdder packetsIn = new LongAdder();
+    final LongAdder packetsOut = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+
+    public long getPacketsIn(){
+        return this.packetsIn.sum();
+    }
+
+    public long getPacketsOut(){
+        return this.packetsOut.sum();
+    }
+
+    public long getBytesIn(){
+        return this.bytesIn.sum();
+    }
+
+    public long getBytesOut(){
+        return this.bytesOut.sum();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * This file ("PacketMetrics.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.metrics;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.util.IAction;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counts packets and bytes per packet type and per client and measures how long
+ * packets take to encode, decode and handle
+ * <br> The game reports to this from its packet encoder and decoder using
+ * {@link #recordSent(Channel, int, int, long)} and {@link #recordReceived(Channel, int, int, long)},
+ * calls packets' {@link IPacket#handle(IGameInstance, ChannelHandlerContext)} through
+ * {@link #handle(IPacket, int, long, IGameInstance, ChannelHandlerContext)} and passes every
+ * action that is scheduled through {@link #track(IAction)}
+ * <br> Everything is recorded using {@link java.util.concurrent.atomic.LongAdder}s, so
+ * the metrics can stay enabled all the time
+ */
+public class PacketMetrics{
+
+    /**
+     * The id that packets whose ids are outside of the range of packet ids are counted under
+     */
+    public static final int UNKNOWN_ID = -1;
+
+    private static final AttributeKey<ClientMetrics> CLIENT_KEY = AttributeKey.valueOf("packet_metrics");
+
+    private final AtomicReferenceArray<PacketTypeMetrics> types = new AtomicReferenceArray<>(Byte.MAX_VALUE+1);
+    private final PacketTypeMetrics unknown = new PacketTypeMetrics(UNKNOWN_ID);
+    private final ThreadLocal<Handling> handling = ThreadLocal.withInitial(Handling::new);
+    private volatile boolean enabled = true;
+
+    /**
+     * @return If metrics should be recorded, which the game checks to avoid measuring time when they aren't
+     */
+    public boolean isEnabled(){
+        return this.enabled;
+    }
+
+    public void setEnabled(boolean enabled){
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records a packet that was written to the specified channel
+     *
+     * @param channel     The channel
+     * @param id          The packet's id
+     * @param bytes       The size of the encoded packet
+     * @param encodeNanos The time it took to encode the packet
+     */
+    public void recordSent(Channel channel, int id, int bytes, long encodeNanos){
+        if(this.enabled){
+            PacketTypeMetrics type = this.getOrCreate(id);
+            type.packetsOut.increment();
+            type.bytesOut.add(bytes);
+            type.getEncodeTime().record(encodeNanos);
+
+            ClientMetrics client = this.getOrCreateClient(channel);
+            client.packetsOut.increment();
+            client.bytesOut.add(bytes);
+        }
+    }
+
+    /**
+     * Records a packet that was read from the specified channel
+     *
+     * @param channel     The channel
+     * @param id          The packet's id
+     * @param bytes       The size of the encoded packet
+     * @param decodeNanos The time it took to decode the packet
+     */
+    public void recordReceived(Channel channel, int id, int bytes, long decodeNanos){
+        if(this.enabled){
+            PacketTypeMetrics type = this.getOrCreate(id);
+            type.packetsIn.increment();
+            type.bytesIn.add(bytes);
+            type.getDecodeTime().record(decodeNanos);
+
+            ClientMetrics client = this.getOrCreateClient(channel);
+            client.packetsIn.increment();
+            client.bytesIn.add(bytes);
+        }
+    }
+
+    /**
+     * Handles the specified packet, remembering its id and the time it was received at
+     * so that {@link #track(IAction)} can measure the latency of the actions it schedules
+     *
+     * @param packet       The packet
+     * @param id           The packet's id
+     * @param receivedTime The {@link System#nanoTime()} at which the packet was received
+     * @param game         The game instance
+     * @param context      The channel handler context
+     */
+    public void handle(IPacket packet, int id, long receivedTime, IGameInstance game, ChannelHandlerContext context){
+        Handling handling = this.handling.get();
+        handling.id = id;
+        handling.receivedTime = receivedTime;
+        handling.active = true;
+
+        try{
+            packet.handle(game, context);
+        }
+        finally{
+            handling.active = false;
+        }
+    }
+
+    /**
+     * Wraps an action that is being scheduled so that the time until it runs is recorded
+     * for the packet that is currently being handled on this thread, if there is one
+     *
+     * @param action The action
+     * @return The action to schedule instead
+     */
+    public IAction track(IAction action){
+        Handling handling = this.handling.get();
+        if(this.enabled && handling.active){
+            return new TrackedAction(action, this.getOrCreate(handling.id), handling.receivedTime);
+        }
+        else{
+            return action;
+        }
+    }
+
+    /**
+     * @param id The packet's id
+     * @return The metrics of the packet with the specified id, or null if it hasn't been sent or received yet.
+     * If the id is outside of the range of packet ids, the metrics of all such packets are returned.
+     */
+    public PacketTypeMetrics get(int id){
+        return id >= 0 && id < this.types.length() ? this.types.get(id) : this.unknown;
+    }
+
+    /**
+     * @return The metrics of all packets that have been sent or received, including
+     * the ones with unknown ids if there were any
+     */
+    public List<PacketTypeMetrics> getAll(){
+        List<PacketTypeMetrics> list = new ArrayList<>();
+        for(int i = 0; i < this.types.length(); i++){
+            PacketTypeMetrics type = this.types.get(i);
+            if(type != null){
+                list.add(type);
+            }
+        }
+        if(this.unknown.getPacketsIn() > 0 || this.unknown.getPacketsOut() > 0){
+            list.add(this.unknown);
+        }
+        return list;
+    }
+
+    /**
+     * @param channel The channel
+     * @return The totals of the specified channel, or null if nothing has been recorded for it yet
+     */
+    public ClientMetrics getClient(Channel channel){
+        return channel.hasAttr(CLIENT_KEY) ? channel.attr(CLIENT_KEY).get() : null;
+    }
+
+    /**
+     * Resets the metrics of all packet types
+     * <br> The totals of clients keep counting for as long as they are connected
+     */
+    public void reset(){
+        for(int i = 0; i < this.types.length(); i++){
+            PacketTypeMetrics type = this.types.get(i);
+            if(type != null){
+                type.reset();
+            }
+        }
+        this.unknown.reset();
+    }
+
+    private PacketTypeMetrics getOrCreate(int id){
+        if(id < 0 || id >= this.types.length()){
+            return this.unknown;
+        }
+
+        PacketTypeMetrics type = this.types.get(id);
+        if(type == null){
+            this.types.compareAndSet(id, null, new PacketTypeMetrics(id));
+            type = this.types.get(id);
+        }
+        return type;
+    }
+
+    private ClientMetrics getOrCreateClient(Channel channel){
+        Attribute<ClientMetrics> attr = channel.attr(CLIENT_KEY);
+        ClientMetrics client = attr.get();
+        if(client == null){
+            client = new ClientMetrics();
+            ClientMetrics existing = attr.setIfAbsent(client);
+            if(existing != null){
+                client = existing;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @param id The packet's id
+     * @return The name of the packet's class, or its id if it isn't registered
+     */
+    public static String getName(int id){
+        if(id == UNKNOWN_ID){
+            return "unknown";
+        }
+
+        Class<? extends IPacket> packet = RockBottomAPI.PACKET_REGISTRY.get(id);
+        return packet != null ? packet.getSimpleName() : String.valueOf(id);
+    }
+
+    private static final class Handling{
+
+        private int id;
+        private long receivedTime;
+        private boolean active;
+    }
+
+    private static final class TrackedAction implements IAction{
+
+        private final IAction action;
+        private final PacketTypeMetrics type;
+        private final long receivedTime;
+        private boolean recorded;
+
+        private TrackedAction(IAction action, PacketTypeMetrics type, long receivedTime){
+            this.action = action;
+            this.type = type;
+            this.receivedTime = receivedTime;
+        }
+
+        @Override
+        public boolean run(){
+            if(!this.recorded){
+                this.type.getHandleLatency().record(System.nanoTime()-this.receivedTime);
+                this.recorded = true;
+            }
+            return this.action.run();
+        }
+    }
+}
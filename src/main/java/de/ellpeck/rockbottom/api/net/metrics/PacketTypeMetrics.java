@@ -0,0 +1,98 @@
+/*
+ * This file ("PacketTypeMetrics.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one type of packet, see {@link PacketMetrics#get(int)}
+ */
+public class PacketTypeMetrics{
+
+    private final int id;
+
+    final LongAdder packetsIn = new LongAdder();
+    final LongAdder packetsOut = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+
+    private final TimeHistogram encodeTime = new TimeHistogram();
+    private final TimeHistogram decodeTime = new TimeHistogram();
+    private final TimeHistogram handleLatency = new TimeHistogram();
+
+    PacketTypeMetrics(int id){
+        this.id = id;
+    }
+
+    /**
+     * @return The id of the packet in {@link de.ellpeck.rockbottom.api.RockBottomAPI#PACKET_REGISTRY},
+     * or {@link PacketMetrics#UNKNOWN_ID} if these are the metrics of packets with unknown ids
+     */
+    public int getId(){
+        return this.id;
+    }
+
+    public long getPacketsIn(){
+        return this.packetsIn.sum();
+    }
+
+    public long getPacketsOut(){
+        return this.packetsOut.sum();
+    }
+
+    public long getBytesIn(){
+        return this.bytesIn.sum();
+    }
+
+    public long getBytesOut(){
+        return this.bytesOut.sum();
+    }
+
+    /**
+     * @return The time it took to write packets of this type to a buffer
+     */
+    public TimeHistogram getEncodeTime(){
+        return this.encodeTime;
+    }
+
+    /**
+     * @return The time it took to read packets of this type from a buffer
+     */
+    public TimeHistogram getDecodeTime(){
+        return this.decodeTime;
+    }
+
+    /**
+     * @return The time between a packet of this type being received and
+     * the action it scheduled being executed on the game thread
+     */
+    public TimeHistogram getHandleLatency(){
+        return this.handleLatency;
+    }
+
+    void reset(){
+        this.packetsIn.reset();
+        this.packetsOut.reset();
+        this.bytesIn.reset();
+        this.bytesOut.reset();
+        this.encodeTime.reset();
+        this.decodeTime.reset();
+        this.handleLatency.reset();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * This file ("TimeHistogram.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds whose buckets grow in powers of two
+ * <br> Recording is lock-free and cheap, but percentiles are only accurate to
+ * within a factor of two
+ */
+public class TimeHistogram{
+
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    public TimeHistogram(){
+        for(int i = 0; i < BUCKETS; i++){
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos){
+        int bucket = Math.min(BUCKETS-1, 64-Long.numberOfLeadingZeros(Math.max(0, nanos)));
+        this.buckets[bucket].increment();
+        this.count.increment();
+        this.total.add(nanos);
+    }
+
+    public long getCount(){
+        return this.count.sum();
+    }
+
+    /**
+     * @return The average duration in nanoseconds
+     */
+    public long getAverage(){
+        long count = this.getCount();
+        return count > 0 ? this.total.sum()/count : 0;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 1
+     * @return The upper bound in nanoseconds of the bucket that the specified percentile falls into
+     */
+    public long getPercentile(double percentile){
+        long count = this.getCount();
+        if(count <= 0){
+            return 0;
+        }
+
+        long needed = Math.max(1, (long)Math.ceil(count*percentile));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            seen += this.buckets[i].sum();
+            if(seen >= needed){
+                return i > 0 ? 1L << i : 0;
+            }
+        }
+        return 1L << (BUCKETS-1);
+    }
+
+    public void reset(){
+        for(LongAdder bucket : this.buckets){
+            bucket.reset();
+        }
+        this.count.reset();
+        this.total.reset();
+    }
+}
@@ -19,11 +19,18 @@
 package de.ellpeck.rockbottom.api.net.packet;
 
 import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.net.PacketPriority;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 
 import java.io.IOException;
 
+/**
+ * A packet that is sent between the client and the server
+ * <br> After a received packet has been handled, it is released using
+ * {@link io.netty.util.ReferenceCountUtil#release(Object)}, which only
+ * does something for packets that are reference counted, like {@link PooledPacket}s
+ */
 public interface IPacket{
 
     void toBuffer(ByteBuf buf) throws IOException;
@@ -31,4 +38,32 @@ public interface IPacket{
     void fromBuffer(ByteBuf buf) throws IOException;
 
     void handle(IGameInstance game, ChannelHandlerContext context);
+
+    /**
+     * @return If this packet should be sent right away rather than being
+     * queued until the end of the tick, see {@link de.ellpeck.rockbottom.api.net.PacketBatcher}
+     */
+    default boolean isUrgent(){
+        return false;
+    }
+
+    /**
+     * @return The class this packet is sorted into by a {@link de.ellpeck.rockbottom.api.net.PacketScheduler},
+     * which is {@link PacketPriority#CONTROL} for urgent packets and {@link PacketPriority#WORLD} for everything else by default
+     */
+    default PacketPriority getPriority(){
+        return this.isUrgent() ? PacketPriority.CONTROL : PacketPriority.WORLD;
+    }
+
+    /**
+     * @return What the data of this packet belongs to, or null if it doesn't depend on other packets.
+     * A {@link de.ellpeck.rockbottom.api.net.PacketScheduler} never sends a packet before the packets
+     * with an equal key that were written before it, even if they have a different priority. Packets
+     * that contain a chunk or change something in it use the chunk's grid position as a
+     * {@link de.ellpeck.rockbottom.api.util.Pos2}, so that changes can't overtake the chunk itself.
+     * <br> This doesn't apply to {@link PacketPriority#CONTROL}, which is always sent right away
+     */
+    default Object getOrderKey(){
+        return null;
+    }
 }
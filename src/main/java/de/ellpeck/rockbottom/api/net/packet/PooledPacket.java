@@ -0,0 +1,114 @@
+/*
+ * This file ("PooledPacket.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.packet;
+
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.Recycler;
+import io.netty.util.ReferenceCounted;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A packet that is reference counted and put back into a pool once it is
+ * released for the last time, so that sending and receiving it doesn't
+ * create garbage
+ * <br> Whoever creates one of these owns one reference to it and needs to
+ * release it after sending it. Every channel that the packet is written to
+ * holds a reference of its own, which Netty releases after encoding. On the
+ * receiving side, the game releases the packet after
+ * {@link IPacket#handle(de.ellpeck.rockbottom.api.IGameInstance, io.netty.channel.ChannelHandlerContext)}
+ * has returned, so packets that use their data later need to retain themselves.
+ */
+public abstract class PooledPacket extends AbstractReferenceCounted implements IPacket{
+
+    private static final Map<Class<? extends IPacket>, Recycler<? extends PooledPacket>> RECYCLERS = new ConcurrentHashMap<>();
+
+    private final Recycler.Handle<PooledPacket> handle;
+
+    /**
+     * @param handle The handle that this packet is recycled with, or null
+     *               if it was created directly and should not be recycled
+     */
+    protected PooledPacket(Recycler.Handle<PooledPacket> handle){
+        this.handle = handle;
+    }
+
+    /**
+     * Creates the pool for the specified packet class
+     * <br> This should be stored in a static field of the packet class
+     *
+     * @param type    The packet class
+     * @param factory The factory that creates new packets for the pool
+     * @param <T>     The packet type
+     * @return The pool
+     */
+    protected static <T extends PooledPacket> Recycler<T> createRecycler(Class<T> type, Function<Recycler.Handle<PooledPacket>, T> factory){
+        Recycler<T> recycler = new Recycler<T>(){
+            @Override
+            @SuppressWarnings("unchecked")
+            protected T newObject(Handle<T> handle){
+                //The handle is only ever passed the packet that it is created for here, which is a T
+                return factory.apply((Handle<PooledPacket>)(Handle<?>)handle);
+            }
+        };
+        RECYCLERS.put(type, recycler);
+        return recycler;
+    }
+
+    /**
+     * Gets an instance of the specified packet class to read a received packet into
+     * <br> Pooled packets are taken from their pool, all other packets are created
+     *
+     * @param type The packet class
+     * @return The packet
+     * @throws Exception If the packet can't be created
+     */
+    public static IPacket obtain(Class<? extends IPacket> type) throws Exception{
+        Recycler<? extends PooledPacket> recycler = RECYCLERS.get(type);
+        if(recycler != null){
+            return recycler.get();
+        }
+        else{
+            return type.getDeclaredConstructor().newInstance();
+        }
+    }
+
+    /**
+     * Resets this packet before it is put back into the pool
+     * <br> Any reference counted objects that the packet holds need to be released here
+     */
+    protected abstract void clear();
+
+    @Override
+    protected final void deallocate(){
+        this.clear();
+
+        if(this.handle != null){
+            this.setRefCnt(1);
+            this.handle.recycle(this);
+        }
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint){
+        return this;
+    }
+}
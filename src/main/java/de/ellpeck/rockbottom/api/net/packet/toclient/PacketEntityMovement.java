@@ -0,0 +1,100 @@
+/*
+ * This file ("PacketEntityMovement.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.packet.toclient;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.entity.Entity;
+import de.ellpeck.rockbottom.api.net.PacketReader;
+import de.ellpeck.rockbottom.api.net.PacketWriter;
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.net.sync.MovementSync;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Sends the movement of an entity as part of its {@link MovementSync}
+ * <br> This packet has the default priority so that it stays in order with the
+ * packets that spawn and remove the entity
+ */
+public class PacketEntityMovement implements IPacket{
+
+    private UUID entityId;
+    private boolean keyframe;
+    private long x;
+    private long y;
+    private long motionX;
+    private long motionY;
+
+    public PacketEntityMovement(UUID entityId, boolean keyframe, long x, long y, long motionX, long motionY){
+        this.entityId = entityId;
+        this.keyframe = keyframe;
+        this.x = x;
+        this.y = y;
+        this.motionX = motionX;
+        this.motionY = motionY;
+    }
+
+    public PacketEntityMovement(){
+    }
+
+    public boolean isKeyframe(){
+        return this.keyframe;
+    }
+
+    @Override
+    public void toBuffer(ByteBuf buf) throws IOException{
+        PacketWriter writer = new PacketWriter(buf);
+        writer.writeUniqueId(this.entityId);
+        writer.writeBoolean(this.keyframe);
+        writer.writeZigZagLong(this.x);
+        writer.writeZigZagLong(this.y);
+        writer.writeZigZagLong(this.motionX);
+        writer.writeZigZagLong(this.motionY);
+    }
+
+    @Override
+    public void fromBuffer(ByteBuf buf) throws IOException{
+        PacketReader reader = new PacketReader(buf);
+        this.entityId = reader.readUniqueId();
+        this.keyframe = reader.readBoolean();
+        this.x = reader.readZigZagLong();
+        this.y = reader.readZigZagLong();
+        this.motionX = reader.readZigZagLong();
+        this.motionY = reader.readZigZagLong();
+    }
+
+    @Override
+    public void handle(IGameInstance game, ChannelHandlerContext context){
+        game.scheduleAction(() -> {
+            IWorld world = game.getWorld();
+            if(world != null){
+                Entity entity = world.getEntity(this.entityId);
+                if(entity != null){
+                    MovementSync sync = entity.getMovementSync();
+                    sync.receive(this.keyframe, this.x, this.y, this.motionX, this.motionY);
+                }
+            }
+            return true;
+        });
+    }
+}
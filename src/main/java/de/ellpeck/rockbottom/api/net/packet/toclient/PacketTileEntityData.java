@@ -19,56 +19,110 @@
 package de.ellpeck.rockbottom.api.net.packet.toclient;
 
 import de.ellpeck.rockbottom.api.IGameInstance;
-import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.net.PacketReader;
+import de.ellpeck.rockbottom.api.net.PacketWriter;
+import de.ellpeck.rockbottom.api.net.packet.PooledPacket;
 import de.ellpeck.rockbottom.api.tile.entity.TileEntity;
+import de.ellpeck.rockbottom.api.util.Pos2;
+import de.ellpeck.rockbottom.api.util.Util;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Recycler;
 
 import java.io.IOException;
 
-public class PacketTileEntityData implements IPacket{
+public class PacketTileEntityData extends PooledPacket{
 
-    private final ByteBuf tileBuf = Unpooled.buffer();
+    private static final Recycler<PacketTileEntityData> RECYCLER = createRecycler(PacketTileEntityData.class, PacketTileEntityData::new);
+
+    private ByteBuf tileBuf;
     private int x;
     private int y;
 
+    /**
+     * Creates a packet containing the data of the specified tile entity that
+     * is neither pooled itself nor uses a pooled buffer, so it doesn't need to
+     * be released. Use {@link #create(int, int, TileEntity)} for a pooled one.
+     *
+     * @param x    The x coordinate
+     * @param y    The y coordinate
+     * @param tile The tile entity
+     */
     public PacketTileEntityData(int x, int y, TileEntity tile){
+        super(null);
+        this.set(x, y, tile, Unpooled.buffer());
+    }
+
+    public PacketTileEntityData(){
+        super(null);
+    }
+
+    private PacketTileEntityData(Recycler.Handle<PooledPacket> handle){
+        super(handle);
+    }
+
+    /**
+     * Gets a pooled packet containing the data of the specified tile entity,
+     * whose data is stored in a pooled buffer
+     * <br> The packet needs to be released after it has been sent, otherwise
+     * neither it nor its buffer are returned to their pools
+     *
+     * @param x    The x coordinate
+     * @param y    The y coordinate
+     * @param tile The tile entity
+     * @return The packet
+     */
+    public static PacketTileEntityData create(int x, int y, TileEntity tile){
+        PacketTileEntityData packet = RECYCLER.get();
+        packet.set(x, y, tile, PooledByteBufAllocator.DEFAULT.buffer());
+        return packet;
+    }
+
+    private void set(int x, int y, TileEntity tile, ByteBuf tileBuf){
         this.x = x;
         this.y = y;
+        this.tileBuf = tileBuf;
         tile.toBuf(this.tileBuf);
     }
 
-    public PacketTileEntityData(){
-
+    @Override
+    public Object getOrderKey(){
+        return new Pos2(Util.toGridPos(this.x), Util.toGridPos(this.y));
     }
 
     @Override
     public void toBuffer(ByteBuf buf) throws IOException{
-        buf.writeInt(this.x);
-        buf.writeInt(this.y);
-
-        buf.writeInt(this.tileBuf.readableBytes());
-        buf.writeBytes(this.tileBuf);
+        PacketWriter writer = new PacketWriter(buf);
+        writer.writeZigZagInt(this.x);
+        writer.writeZigZagInt(this.y);
+        writer.writeBytes(this.tileBuf);
     }
 
     @Override
     public void fromBuffer(ByteBuf buf) throws IOException{
-        this.x = buf.readInt();
-        this.y = buf.readInt();
+        PacketReader reader = new PacketReader(buf);
+        this.x = reader.readZigZagInt();
+        this.y = reader.readZigZagInt();
 
-        int readable = buf.readInt();
-        buf.readBytes(this.tileBuf, readable);
+        //Copied so that the frame that was read from isn't kept until the packet is handled
+        ByteBuf data = reader.readBytes();
+        this.tileBuf = PooledByteBufAllocator.DEFAULT.buffer(data.readableBytes(), data.readableBytes());
+        this.tileBuf.writeBytes(data);
     }
 
     @Override
     public void handle(IGameInstance game, ChannelHandlerContext context){
+        this.retain();
         game.scheduleAction(() -> {
             if(game.getWorld() != null){
                 TileEntity tile = game.getWorld().getTileEntity(this.x, this.y);
                 if(tile != null){
                     tile.fromBuf(this.tileBuf);
                 }
+
+                this.release();
                 return true;
             }
             else{
@@ -76,4 +130,12 @@ public class PacketTileEntityData implements IPacket{
             }
         });
     }
+
+    @Override
+    protected void clear(){
+        if(this.tileBuf != null){
+            this.tileBuf.release();
+            this.tileBuf = null;
+        }
+    }
 }
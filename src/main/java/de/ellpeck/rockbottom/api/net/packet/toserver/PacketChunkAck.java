@@ -0,0 +1,81 @@
+/*
+ * This file ("PacketChunkAck.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.packet.toserver;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.entity.player.AbstractEntityPlayer;
+import de.ellpeck.rockbottom.api.net.PacketPriority;
+import de.ellpeck.rockbottom.api.net.PacketReader;
+import de.ellpeck.rockbottom.api.net.PacketWriter;
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Sent by the client once it has received chunks, see
+ * {@link de.ellpeck.rockbottom.api.net.sync.ChunkStreamer}
+ */
+public class PacketChunkAck implements IPacket{
+
+    private UUID playerId;
+    private int amount;
+
+    public PacketChunkAck(UUID playerId, int amount){
+        this.playerId = playerId;
+        this.amount = amount;
+    }
+
+    public PacketChunkAck(){
+    }
+
+    @Override
+    public PacketPriority getPriority(){
+        return PacketPriority.CONTROL;
+    }
+
+    @Override
+    public void toBuffer(ByteBuf buf) throws IOException{
+        PacketWriter writer = new PacketWriter(buf);
+        writer.writeUniqueId(this.playerId);
+        writer.writeVarInt(this.amount);
+    }
+
+    @Override
+    public void fromBuffer(ByteBuf buf) throws IOException{
+        PacketReader reader = new PacketReader(buf);
+        this.playerId = reader.readUniqueId();
+        this.amount = reader.readVarInt();
+    }
+
+    @Override
+    public void handle(IGameInstance game, ChannelHandlerContext context){
+        game.scheduleAction(() -> {
+            if(game.getWorld() != null){
+                AbstractEntityPlayer player = game.getWorld().getPlayer(this.playerId);
+                if(player != null){
+                    player.getChunkStreamer().acknowledge(this.amount);
+                }
+            }
+            return true;
+        });
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file ("PacketCompressionAck.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.packet.toserver;
+
+import de.ellpeck.rockbottom.api.IGameInstance;
+import de.ellpeck.rockbottom.api.net.compression.PacketCompression;
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+
+import java.io.IOException;
+
+/**
+ * Sent by the client as the last frame before it starts compressing, see
+ * {@link PacketCompression#receiveThreshold(io.netty.channel.Channel, int)}
+ */
+public class PacketCompressionAck implements IPacket{
+
+    private int threshold;
+
+    public PacketCompressionAck(int threshold){
+        this.threshold = threshold;
+    }
+
+    public PacketCompressionAck(){
+    }
+
+    @Override
+    public void toBuffer(ByteBuf buf) throws IOException{
+        buf.writeInt(this.threshold);
+    }
+
+    @Override
+    public void fromBuffer(ByteBuf buf) throws IOException{
+        this.threshold = buf.readInt();
+    }
+
+    @Override
+    public void handle(IGameInstance game, ChannelHandlerContext context){
+        PacketCompression.receiveAck(context.channel(), this.threshold);
+    }
+
+    @Override
+    public boolean isUrgent(){
+        return true;
+    }
+}
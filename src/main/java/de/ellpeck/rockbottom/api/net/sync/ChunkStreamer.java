@@ -0,0 +1,210 @@
+/*
+ * This file ("ChunkStreamer.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.sync;
+
+import de.ellpeck.rockbottom.api.Constants;
+import de.ellpeck.rockbottom.api.entity.player.AbstractEntityPlayer;
+import de.ellpeck.rockbottom.api.net.packet.IPacket;
+import de.ellpeck.rockbottom.api.net.packet.toserver.PacketChunkAck;
+import de.ellpeck.rockbottom.api.util.Util;
+import de.ellpeck.rockbottom.api.world.IChunk;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Sends the chunks that a player loads to their client over multiple ticks
+ * <br> Every tick, the chunks that are closest to the player are sent first,
+ * and only up to a limited amount of them. Sending pauses while too many chunks
+ * haven't been acknowledged by the client using {@link PacketChunkAck} yet.
+ * Chunks that are unloaded before they were sent are never sent at all.
+ * <br> The game queues chunks using {@link #queue(IChunk)} when they are loaded
+ * for the player and cancels them using {@link #cancel(IChunk)} when they are
+ * unloaded, and calls {@link #update()} once every tick
+ * <br> Packets that depend on the client having a chunk, like the movement of the
+ * entities in it, should only be sent once {@link #isReceived(IChunk)} returns true
+ */
+public class ChunkStreamer{
+
+    public static final int DEFAULT_CHUNKS_PER_TICK = 4;
+    public static final int DEFAULT_MAX_BACKLOG = 16;
+
+    private final AbstractEntityPlayer player;
+    private final Function<IChunk, IPacket> packetFactory;
+    private final List<IChunk> pending = new ArrayList<>();
+    private final ArrayDeque<IChunk> unacknowledged = new ArrayDeque<>();
+    private final Set<IChunk> unreceived = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final int chunksPerTick;
+    private final int maxBacklog;
+
+    private int sentChunks;
+    private int cancelledChunks;
+
+    public ChunkStreamer(AbstractEntityPlayer player, Function<IChunk, IPacket> packetFactory){
+        this(player, packetFactory, DEFAULT_CHUNKS_PER_TICK, DEFAULT_MAX_BACKLOG);
+    }
+
+    /**
+     * @param player        The player to send chunks to
+     * @param packetFactory The function that creates the packet containing a chunk
+     * @param chunksPerTick The amount of chunks that can be sent every tick
+     * @param maxBacklog    The amount of chunks that can be waiting for acknowledgement before sending pauses
+     */
+    public ChunkStreamer(AbstractEntityPlayer player, Function<IChunk, IPacket> packetFactory, int chunksPerTick, int maxBacklog){
+        this.player = player;
+        this.packetFactory = packetFactory;
+        this.chunksPerTick = chunksPerTick;
+        this.maxBacklog = maxBacklog;
+    }
+
+    /**
+     * Queues a chunk to be sent to the player
+     *
+     * @param chunk The chunk
+     */
+    public void queue(IChunk chunk){
+        if(!this.pending.contains(chunk)){
+            this.pending.add(chunk);
+            this.unreceived.add(chunk);
+        }
+    }
+
+    /**
+     * Removes a chunk from the queue if it hasn't been sent yet
+     *
+     * @param chunk The chunk
+     * @return true if the chunk was still queued, meaning the client never received it
+     */
+    public boolean cancel(IChunk chunk){
+        if(this.pending.remove(chunk)){
+            if(!this.unacknowledged.contains(chunk)){
+                this.unreceived.remove(chunk);
+            }
+            this.cancelledChunks++;
+            return true;
+        }
+        else{
+            return false;
+        }
+    }
+
+    /**
+     * Sends the closest queued chunks that are in range of the player
+     * <br> Chunks that are out of range stay queued until the player comes
+     * back or they are cancelled
+     */
+    public void update(){
+        int amount = Math.min(this.chunksPerTick, this.maxBacklog-this.unacknowledged.size());
+        if(amount <= 0 || this.pending.isEmpty()){
+            return;
+        }
+
+        int gridX = Util.toGridPos(this.player.x);
+        int gridY = Util.toGridPos(this.player.y);
+        this.pending.sort(Comparator.comparingInt(chunk -> distanceSq(chunk, gridX, gridY)));
+
+        int sent = 0;
+        int index = 0;
+        while(sent < amount && index < this.pending.size()){
+            IChunk chunk = this.pending.get(index);
+            if(Math.abs(chunk.getGridX()-gridX) > Constants.CHUNK_LOAD_DISTANCE || Math.abs(chunk.getGridY()-gridY) > Constants.CHUNK_LOAD_DISTANCE){
+                //The list is sorted, so everything after this chunk is at least as far away
+                if(distanceSq(chunk, gridX, gridY) > 2*Constants.CHUNK_LOAD_DISTANCE*Constants.CHUNK_LOAD_DISTANCE){
+                    break;
+                }
+                index++;
+                continue;
+            }
+
+            this.pending.remove(index);
+            this.player.sendPacket(this.packetFactory.apply(chunk));
+            this.unacknowledged.add(chunk);
+            this.sentChunks++;
+            sent++;
+        }
+    }
+
+    private static int distanceSq(IChunk chunk, int gridX, int gridY){
+        int x = chunk.getGridX()-gridX;
+        int y = chunk.getGridY()-gridY;
+        return x*x+y*y;
+    }
+
+    /**
+     * Marks the specified amount of chunks as received by the client
+     * <br> The client receives chunks in the order they were sent in,
+     * so these are the ones that were sent the longest time ago
+     *
+     * @param amount The amount
+     */
+    public void acknowledge(int amount){
+        for(int i = 0; i < amount && !this.unacknowledged.isEmpty(); i++){
+            IChunk chunk = this.unacknowledged.poll();
+            //A chunk that was queued again after being sent still needs to be received again
+            if(!this.unacknowledged.contains(chunk) && !this.pending.contains(chunk)){
+                this.unreceived.remove(chunk);
+            }
+        }
+    }
+
+    /**
+     * Forgets about all queued chunks and chunks that are waiting for
+     * acknowledgement, like when the player changes worlds
+     */
+    public void reset(){
+        this.pending.clear();
+        this.unacknowledged.clear();
+        this.unreceived.clear();
+    }
+
+    public boolean isQueued(IChunk chunk){
+        return this.pending.contains(chunk);
+    }
+
+    /**
+     * @param chunk The chunk
+     * @return false if the chunk is queued or has been sent but not acknowledged yet,
+     * true if the client has received it or it was never queued
+     */
+    public boolean isReceived(IChunk chunk){
+        return !this.unreceived.contains(chunk);
+    }
+
+    public int getQueuedAmount(){
+        return this.pending.size();
+    }
+
+    public int getUnacknowledgedAmount(){
+        return this.unacknowledged.size();
+    }
+
+    public int getSentAmount(){
+        return this.sentChunks;
+    }
+
+    public int getCancelledAmount(){
+        return this.cancelledChunks;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * This file ("MovementSync.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.net.sync;
+
+import de.ellpeck.rockbottom.api.entity.Entity;
+import de.ellpeck.rockbottom.api.entity.player.AbstractEntityPlayer;
+import de.ellpeck.rockbottom.api.net.PacketWriter;
+import de.ellpeck.rockbottom.api.net.packet.toclient.PacketEntityMovement;
+import de.ellpeck.rockbottom.api.world.IChunk;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syncs the position and motion of an {@link Entity} to clients
+ * <br> On the server, the positions and motions that were last sent to every
+ * player are tracked, and only the quantized difference to them is sent once
+ * the entity has moved far enough. Every {@link #KEYFRAME_INTERVAL} ticks,
+ * absolute values are sent instead. Because packets can't get lost, the
+ * values that were last sent are also the ones that the client has.
+ * <br> Players only start being tracked once their client has received the
+ * entity's chunk, and the first thing they are sent is always a keyframe.
+ * <br> On the client, received positions are interpolated towards over a
+ * few ticks rather than being jumped to. Differences that arrive before
+ * the first keyframe are ignored, as there is nothing to apply them to.
+ */
+public class MovementSync{
+
+    public static final int PRECISION = PacketWriter.POS_PRECISION;
+    public static final long POS_THRESHOLD = PRECISION/32;
+    public static final long MOTION_THRESHOLD = PRECISION/64;
+    public static final int KEYFRAME_INTERVAL = 100;
+    public static final int INTERPOLATION_TICKS = 3;
+    public static final double MAX_INTERPOLATION_DISTANCE = 8;
+
+    private final Entity entity;
+    private final Map<AbstractEntityPlayer, SentState> sentStates = new IdentityHashMap<>();
+    private int updates;
+
+    private boolean hasKeyframe;
+    private long receivedX;
+    private long receivedY;
+    private double targetX;
+    private double targetY;
+    private int interpolationTicks;
+
+    public MovementSync(Entity entity){
+        this.entity = entity;
+    }
+
+    public static long quantize(double value){
+        return Math.round(value*PRECISION);
+    }
+
+    /**
+     * Sends the entity's movement to all of the players that track the
+     * specified chunk and need it, which are the same players that
+     * {@link de.ellpeck.rockbottom.api.net.INetHandler#sendToTrackingPlayers(IChunk, de.ellpeck.rockbottom.api.net.packet.IPacket)}
+     * sends to
+     * <br> This is called on the server every tick for entities that sync
+     *
+     * @param chunk The chunk that the entity is in
+     */
+    public void update(IChunk chunk){
+        long x = quantize(this.entity.x);
+        long y = quantize(this.entity.y);
+        long motionX = quantize(this.entity.motionX);
+        long motionY = quantize(this.entity.motionY);
+        int tick = this.entity.ticksExisted;
+        int update = ++this.updates;
+        int tracked = 0;
+
+        PacketEntityMovement lastPacket = null;
+        SentState lastState = null;
+
+        //Players that have left the range still have the chunk loaded until their timer runs out
+        List<AbstractEntityPlayer> inRange = chunk.getPlayersInRange();
+        List<AbstractEntityPlayer> leftRange = chunk.getPlayersLeftRange();
+        int playerAmount = inRange.size()+leftRange.size();
+
+        for(int i = 0; i < playerAmount; i++){
+            AbstractEntityPlayer player = i < inRange.size() ? inRange.get(i) : leftRange.get(i-inRange.size());
+
+            //Until the client has the chunk, it doesn't have the entity either
+            if(player == this.entity || !player.getChunkStreamer().isReceived(chunk)){
+                continue;
+            }
+
+            SentState state = this.sentStates.get(player);
+            boolean keyframe;
+            if(state == null){
+                state = new SentState();
+                this.sentStates.put(player, state);
+                keyframe = true;
+            }
+            else if(state.lastUpdate == update){
+                continue;
+            }
+            else{
+                keyframe = false;
+            }
+            state.lastUpdate = update;
+            tracked++;
+
+            if(!keyframe){
+                if(!state.differs(x, y, motionX, motionY)){
+                    continue;
+                }
+
+                keyframe = tick-state.keyframeTick >= KEYFRAME_INTERVAL;
+                if(!keyframe && !state.needsUpdate(x, y, motionX, motionY)){
+                    continue;
+                }
+            }
+
+            //Players that were sent the same thing before can share a packet
+            PacketEntityMovement packet;
+            if(lastPacket != null && lastState.sameAs(state) && lastPacket.isKeyframe() == keyframe){
+                packet = lastPacket;
+            }
+            else{
+                packet = keyframe ? new PacketEntityMovement(this.entity.getUniqueId(), true, x, y, motionX, motionY) : new PacketEntityMovement(this.entity.getUniqueId(), false, x-state.x, y-state.y, motionX, motionY);
+                lastPacket = packet;
+                lastState = state.copy();
+            }
+            player.sendPacket(packet);
+
+            state.x = x;
+            state.y = y;
+            state.motionX = motionX;
+            state.motionY = motionY;
+            if(keyframe){
+                state.keyframeTick = tick;
+            }
+        }
+
+        //Players that don't track the entity anymore get a keyframe when they come back
+        if(tracked < this.sentStates.size()){
+            Iterator<SentState> states = this.sentStates.values().iterator();
+            while(states.hasNext()){
+                if(states.next().lastUpdate != update){
+                    states.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops tracking what was sent to the specified player
+     *
+     * @param player The player
+     */
+    public void untrack(AbstractEntityPlayer player){
+        this.sentStates.remove(player);
+    }
+
+    /**
+     * Applies movement that was received from the server
+     * <br> This is called on the client
+     *
+     * @param keyframe If the position is absolute rather than relative to the previous one
+     * @param x        The quantized x position or the difference to the previous one
+     * @param y        The quantized y position or the difference to the previous one
+     * @param motionX  The quantized x motion
+     * @param motionY  The quantized y motion
+     */
+    public void receive(boolean keyframe, long x, long y, long motionX, long motionY){
+        if(keyframe){
+            this.receivedX = x;
+            this.receivedY = y;
+            this.hasKeyframe = true;
+        }
+        else if(!this.hasKeyframe){
+            return;
+        }
+        else{
+            this.receivedX += x;
+            this.receivedY += y;
+        }
+
+        this.targetX = (double)this.receivedX/PRECISION;
+        this.targetY = (double)this.receivedY/PRECISION;
+        this.entity.motionX = (double)motionX/PRECISION;
+        this.entity.motionY = (double)motionY/PRECISION;
+
+        if(Math.abs(this.targetX-this.entity.x) > MAX_INTERPOLATION_DISTANCE || Math.abs(this.targetY-this.entity.y) > MAX_INTERPOLATION_DISTANCE){
+            this.entity.setPos(this.targetX, this.targetY);
+            this.interpolationTicks = 0;
+        }
+        else{
+            this.interpolationTicks = INTERPOLATION_TICKS;
+        }
+    }
+
+    /**
+     * Moves the entity towards the position that was last received
+     * <br> This is called on the client every tick
+     */
+    public void interpolate(){
+        if(this.interpolationTicks > 0){
+            double x = this.entity.x+(this.targetX-this.entity.x)/this.interpolationTicks;
+            double y = this.entity.y+(this.targetY-this.entity.y)/this.interpolationTicks;
+            this.entity.setPos(x, y);
+
+            this.interpolationTicks--;
+        }
+    }
+
+    private static final class SentState{
+
+        private long x;
+        private long y;
+        private long motionX;
+        private long motionY;
+        private int keyframeTick;
+        private int lastUpdate;
+
+        private boolean differs(long x, long y, long motionX, long motionY){
+            return this.x != x || this.y != y || this.motionX != motionX || this.motionY != motionY;
+        }
+
+        private boolean needsUpdate(long x, long y, long motionX, long motionY){
+            if(Math.abs(this.x-x) >= POS_THRESHOLD || Math.abs(this.y-y) >= POS_THRESHOLD){
+                return true;
+            }
+            if(Math.abs(this.motionX-motionX) >= MOTION_THRESHOLD || Math.abs(this.motionY-motionY) >= MOTION_THRESHOLD){
+                return true;
+            }
+            //Make sure that the exact position arrives once the entity comes to rest
+            return motionX == 0 && motionY == 0;
+        }
+
+        private boolean sameAs(SentState state){
+            return this.x == state.x && this.y == state.y && this.motionX == state.motionX && this.motionY == state.motionY && this.keyframeTick == state.keyframeTick;
+        }
+
+        private SentState copy(){
+            SentState state = new SentState();
+            state.x = this.x;
+            state.y = this.y;
+            state.motionX = this.motionX;
+            state.motionY = this.motionY;
+            state.keyframeTick = this.keyframeTick;
+            return state;
+        }
+    }
+}
@@ -84,7 +84,9 @@ public class TileEntity{
 
     protected void sendToClients(){
         if(RockBottomAPI.getNet().isServer()){
-            RockBottomAPI.getNet().sendToAllPlayers(this.world, new PacketTileEntityData(this.x, this.y, this));
+            PacketTileEntityData packet = PacketTileEntityData.create(this.x, this.y, this);
+            RockBottomAPI.getNet().sendToTrackingPlayers(this.world, this.x, this.y, packet);
+            packet.release();
         }
     }
 
@@ -32,4 +32,20 @@ public interface IRegistry<T, U>{
 
     Map<T, U> getUnmodifiable();
 
+    /**
+     * Stops anything else from being registered and switches the registry over to
+     * lookup structures that are faster but can't be changed anymore
+     * <br> This is called by the game once all mods have been initialized
+     * <br> By default, this does nothing, so registries that don't override it stay changeable
+     */
+    default void freeze(){
+
+    }
+
+    /**
+     * @return If {@link #freeze()} has been called and this registry actually froze
+     */
+    default boolean isFrozen(){
+        return false;
+    }
 }
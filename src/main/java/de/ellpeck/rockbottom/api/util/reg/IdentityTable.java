@@ -0,0 +1,70 @@
+/*
+ * This file ("IdentityTable.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.util.reg;
+
+import java.util.Map;
+
+/**
+ * An immutable open-addressed table that maps keys to values by identity,
+ * which is what frozen registries use for their reverse lookups
+ */
+final class IdentityTable<K, V>{
+
+    private final Object[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    IdentityTable(Map<K, V> map){
+        int capacity = 2;
+        while(capacity < map.size()*2){
+            capacity <<= 1;
+        }
+
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity-1;
+
+        for(Map.Entry<K, V> entry : map.entrySet()){
+            int index = this.indexOf(entry.getKey());
+            while(this.keys[index] != null){
+                index = (index+1)&this.mask;
+            }
+            this.keys[index] = entry.getKey();
+            this.values[index] = entry.getValue();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key){
+        int index = this.indexOf(key);
+        Object current;
+        while((current = this.keys[index]) != null){
+            if(current == key){
+                return (V)this.values[index];
+            }
+            index = (index+1)&this.mask;
+        }
+        return null;
+    }
+
+    private int indexOf(Object key){
+        int hash = System.identityHashCode(key);
+        return (hash^(hash >>> 16))&this.mask;
+    }
+}
@@ -22,14 +22,23 @@ import org.newdawn.slick.util.Log;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
+/**
+ * A registry that maps ids between 0 and a maximum to values
+ * <br> Values are looked up by identity when getting their id. Once the
+ * registry is frozen, ids are stored in a plain array.
+ */
 public class IndexRegistry<T> implements IRegistry<Integer, T>{
 
     protected final int max;
     protected final String name;
     protected final Map<Integer, T> map = new HashMap<>();
+    protected final Map<T, Integer> reverseMap = new IdentityHashMap<>();
+
+    private Object[] frozenValues;
+    private IdentityTable<T, Integer> frozenIds;
 
     public IndexRegistry(String name, int max){
         this.name = name;
@@ -38,6 +47,9 @@ public class IndexRegistry<T> implements IRegistry<Integer, T>{
 
     @Override
     public void register(Integer id, T value){
+        if(this.isFrozen()){
+            throw new IllegalStateException("Cannot register "+value+" with id "+id+" into registry "+this+" after it has been frozen");
+        }
         if(id < 0 || id > this.max){
             throw new IndexOutOfBoundsException("Tried registering "+value+" with id "+id+" which is less than 0 or greater than max "+this.max+" in registry "+this);
         }
@@ -46,16 +58,21 @@ public class IndexRegistry<T> implements IRegistry<Integer, T>{
         }
 
         this.map.put(id, value);
+        this.reverseMap.putIfAbsent(value, id);
 
         Log.info("Registered "+value+" with id "+id+" into registry "+this);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public T get(Integer id){
         if(id > this.max){
             Log.warn("Tried getting value of "+id+" for registry "+this+" which is greater than max "+this.max);
             return null;
         }
+        else if(this.frozenValues != null){
+            return id >= 0 && id < this.frozenValues.length ? (T)this.frozenValues[id] : null;
+        }
         else{
             return this.map.get(id);
         }
@@ -63,12 +80,8 @@ public class IndexRegistry<T> implements IRegistry<Integer, T>{
 
     @Override
     public Integer getId(T value){
-        for(Entry<Integer, T> entry : this.map.entrySet()){
-            if(value.equals(entry.getValue())){
-                return entry.getKey();
-            }
-        }
-        return -1;
+        Integer id = this.frozenIds != null ? this.frozenIds.get(value) : this.reverseMap.get(value);
+        return id != null ? id : -1;
     }
 
     public int getNextFreeId(){
@@ -90,6 +103,29 @@ public class IndexRegistry<T> implements IRegistry<Integer, T>{
         return Collections.unmodifiableMap(this.map);
     }
 
+    @Override
+    public void freeze(){
+        if(!this.isFrozen()){
+            int length = 0;
+            for(int id : this.map.keySet()){
+                length = Math.max(length, id+1);
+            }
+
+            Object[] values = new Object[length];
+            for(Map.Entry<Integer, T> entry : this.map.entrySet()){
+                values[entry.getKey()] = entry.getValue();
+            }
+
+            this.frozenIds = new IdentityTable<>(this.reverseMap);
+            this.frozenValues = values;
+        }
+    }
+
+    @Override
+    public boolean isFrozen(){
+        return this.frozenValues != null;
+    }
+
     @Override
     public String toString(){
         return this.name;
@@ -22,13 +22,20 @@ import org.newdawn.slick.util.Log;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 
+/**
+ * A registry that maps {@link IResourceName}s to values
+ * <br> Values are looked up by identity when getting their name
+ */
 public class NameRegistry<T> implements IRegistry<IResourceName, T>{
 
     protected final String name;
     protected final Map<IResourceName, T> map = new HashMap<>();
+    protected final Map<T, IResourceName> reverseMap = new IdentityHashMap<>();
+
+    private IdentityTable<T, IResourceName> frozenNames;
 
     public NameRegistry(String name){
         this.name = name;
@@ -36,6 +43,9 @@ public class NameRegistry<T> implements IRegistry<IResourceName, T>{
 
     @Override
     public void register(IResourceName name, T value){
+        if(this.isFrozen()){
+            throw new IllegalStateException("Cannot register "+value+" with name "+name+" into registry "+this+" after it has been frozen");
+        }
         if(name == null || name.isEmpty()){
             throw new IndexOutOfBoundsException("Tried registering "+value+" with name "+name+" which is invalid into registry "+this);
         }
@@ -44,6 +54,7 @@ public class NameRegistry<T> implements IRegistry<IResourceName, T>{
         }
 
         this.map.put(name, value);
+        this.reverseMap.putIfAbsent(value, name);
 
         Log.info("Registered "+value+" with name "+name+" into registry "+this);
     }
@@ -61,12 +72,7 @@ public class NameRegistry<T> implements IRegistry<IResourceName, T>{
 
     @Override
     public IResourceName getId(T value){
-        for(Entry<IResourceName, T> entry : this.map.entrySet()){
-            if(value.equals(entry.getValue())){
-                return entry.getKey();
-            }
-        }
-        return null;
+        return this.frozenNames != null ? this.frozenNames.get(value) : this.reverseMap.get(value);
     }
 
     @Override
@@ -79,6 +85,18 @@ public class NameRegistry<T> implements IRegistry<IResourceName, T>{
         return Collections.unmodifiableMap(this.map);
     }
 
+    @Override
+    public void freeze(){
+        if(!this.isFrozen()){
+            this.frozenNames = new IdentityTable<>(this.reverseMap);
+        }
+    }
+
+    @Override
+    public boolean isFrozen(){
+        return this.frozenNames != null;
+    }
+
     @Override
     public String toString(){
         return this.name;
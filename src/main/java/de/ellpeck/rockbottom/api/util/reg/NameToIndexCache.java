@@ -0,0 +1,84 @@
+/*
+ * This file ("NameToIndexCache.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.util.reg;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the names of a {@link NameToIndexInfo} to the values of a {@link NameRegistry}
+ * once, so that getting the value for an id is a single array access and getting the
+ * id for a value is a single identity lookup
+ * <br> Use {@link NameToIndexInfo#getCache(NameRegistry)} to get one, which takes care
+ * of building a new cache when the info changes
+ */
+public class NameToIndexCache<T>{
+
+    private final NameRegistry<T> registry;
+    private final Object[] values;
+    private final IdentityTable<T, Integer> ids;
+
+    NameToIndexCache(NameRegistry<T> registry, IResourceName[] names){
+        this.registry = registry;
+
+        int length = 0;
+        for(int i = 0; i < names.length; i++){
+            if(names[i] != null){
+                length = i+1;
+            }
+        }
+
+        this.values = new Object[length];
+        Map<T, Integer> ids = new IdentityHashMap<>();
+
+        for(int i = 0; i < length; i++){
+            if(names[i] != null){
+                T value = registry.get(names[i]);
+                if(value != null){
+                    this.values[i] = value;
+                    ids.putIfAbsent(value, i);
+                }
+            }
+        }
+
+        this.ids = new IdentityTable<>(ids);
+    }
+
+    /**
+     * @param value The value
+     * @return The id of the specified value, or -1 if it doesn't have one
+     */
+    public int getId(T value){
+        Integer id = this.ids.get(value);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id The id
+     * @return The value with the specified id, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int id){
+        return id >= 0 && id < this.values.length ? (T)this.values[id] : null;
+    }
+
+    public NameRegistry<T> getRegistry(){
+        return this.registry;
+    }
+}
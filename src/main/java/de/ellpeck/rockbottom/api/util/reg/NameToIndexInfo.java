@@ -23,89 +23,284 @@ import de.ellpeck.rockbottom.api.data.IDataManager;
 import de.ellpeck.rockbottom.api.data.settings.IPropSettings;
 import de.ellpeck.rockbottom.api.net.NetUtil;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.newdawn.slick.util.Log;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
+/**
+ * Maps the names of a {@link NameRegistry} to the ids they are saved with in a world
+ * <br> Names are looked up through a hash index and new ids are handed out from a
+ * cursor, so populating is linear in the size of the registry. The table is saved
+ * to its file in a compact binary form using {@link #save()}, and files that were
+ * saved as {@link Properties} by older versions can still be loaded using {@link #load()}
+ * <br> The {@link IPropSettings} methods are only kept so that loading and saving this
+ * through the {@link IDataManager} keeps working, use {@link #load()} and {@link #save()} instead
+ */
 public class NameToIndexInfo implements IPropSettings{
 
-    private final IndexRegistry<IResourceName> reg;
+    public static final int MAGIC = 0x52424e49;
+    public static final int VERSION = 1;
+
+    private final String name;
     private final File file;
+    private final int max;
+    private final Map<IResourceName, Integer> ids = new HashMap<>();
+    private IResourceName[] names = new IResourceName[16];
+    private int nextFreeId;
     private boolean needsSave;
+    private volatile NameToIndexCache<?> cache;
 
     public NameToIndexInfo(String name, File file, int max){
+        this.name = name;
         this.file = file;
-        this.reg = new IndexRegistry<>(name, max);
+        this.max = max;
     }
 
     public <T> void populate(NameRegistry<T> registry){
-        for(Map.Entry<IResourceName, T> entry : registry.map.entrySet()){
-            IResourceName key = entry.getKey();
-
-            if(this.getId(key) < 0){
-                this.reg.register(this.reg.getNextFreeId(), key);
+        for(IResourceName key : registry.map.keySet()){
+            if(!this.ids.containsKey(key)){
+                this.put(this.allocateId(), key);
                 this.needsSave = true;
             }
         }
     }
 
+    private int allocateId(){
+        while(this.nextFreeId < this.names.length && this.names[this.nextFreeId] != null){
+            this.nextFreeId++;
+        }
+
+        if(this.nextFreeId > this.max){
+            throw new IndexOutOfBoundsException("Cannot add more than "+(this.max+1)+" entries to "+this.getName());
+        }
+        return this.nextFreeId++;
+    }
+
+    private void put(int id, IResourceName name){
+        if(id < 0 || id > this.max){
+            throw new IndexOutOfBoundsException("Tried adding "+name+" with id "+id+" which is less than 0 or greater than max "+this.max+" to "+this.getName());
+        }
+
+        if(id >= this.names.length){
+            this.names = Arrays.copyOf(this.names, Math.min(this.max+1, Math.max(id+1, this.names.length*2)));
+        }
+
+        IResourceName previous = this.names[id];
+        if(previous != null){
+            this.ids.remove(previous);
+        }
+
+        Integer previousId = this.ids.put(name, id);
+        if(previousId != null && previousId != id){
+            this.names[previousId] = null;
+            this.nextFreeId = Math.min(this.nextFreeId, previousId);
+        }
+
+        this.names[id] = name;
+        this.cache = null;
+    }
+
+    private void clear(){
+        this.ids.clear();
+        Arrays.fill(this.names, null);
+        this.nextFreeId = 0;
+        this.cache = null;
+    }
+
     public int getId(IResourceName name){
-        return this.reg.getId(name);
+        Integer id = this.ids.get(name);
+        return id != null ? id : -1;
     }
 
     public IResourceName get(int id){
-        return this.reg.get(id);
+        return id >= 0 && id < this.names.length ? this.names[id] : null;
+    }
+
+    /**
+     * Gets a cache that resolves the ids of this info to the values of the specified
+     * registry, which is built the first time it is needed after this info has changed
+     *
+     * @param registry The registry that this info was populated from
+     * @param <T>      The type of the registry's values
+     * @return The cache
+     */
+    @SuppressWarnings("unchecked")
+    public <T> NameToIndexCache<T> getCache(NameRegistry<T> registry){
+        NameToIndexCache<?> cache = this.cache;
+        if(cache == null || cache.getRegistry() != registry){
+            cache = new NameToIndexCache<>(registry, this.names);
+            this.cache = cache;
+        }
+        return (NameToIndexCache<T>)cache;
+    }
+
+    public int getSize(){
+        return this.ids.size();
     }
 
     public boolean needsSave(){
         return this.needsSave;
     }
 
-    @Override
-    public void load(Properties props){
-        this.reg.map.clear();
+    /**
+     * Loads this info from its file, no matter if it was saved in the binary
+     * form or as {@link Properties} by an older version
+     * <br> Files in the old form are marked as needing to be saved so that
+     * they are converted the next time the world saves
+     *
+     * @throws IOException If reading the file fails
+     */
+    public void load() throws IOException{
+        if(this.file.exists()){
+            ByteBuf buf = Unpooled.wrappedBuffer(Files.readAllBytes(this.file.toPath()));
 
-        for(String key : props.stringPropertyNames()){
-            int index = Integer.parseInt(key);
-            this.reg.map.put(index, RockBottomAPI.createRes(props.getProperty(key)));
+            if(buf.readableBytes() >= 4 && buf.getInt(buf.readerIndex()) == MAGIC){
+                buf.skipBytes(4);
+
+                int version = buf.readByte();
+                if(version > VERSION){
+                    throw new IOException("Cannot read "+this.getName()+" with version "+version+" which is newer than the current version "+VERSION);
+                }
+                this.fromBuffer(buf);
+            }
+            else{
+                Properties props = new Properties();
+                try(InputStream stream = new FileInputStream(this.file)){
+                    props.load(stream);
+                }
+                this.loadProperties(props);
+                this.needsSave = true;
+            }
         }
     }
 
-    public void fromBuffer(ByteBuf buf){
-        this.reg.map.clear();
+    /**
+     * Saves this info to its file in the binary form
+     *
+     * @throws IOException If writing the file fails
+     */
+    public void save() throws IOException{
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeInt(MAGIC);
+        buf.writeByte(VERSION);
+        this.toBuffer(buf);
 
-        int amount = buf.readInt();
-        for(int i = 0; i < amount; i++){
-            this.reg.map.put(buf.readInt(), RockBottomAPI.createRes(NetUtil.readStringFromBuffer(buf)));
+        try(OutputStream stream = new FileOutputStream(this.file)){
+            buf.readBytes(stream, buf.readableBytes());
         }
+
+        this.needsSave = false;
     }
 
+    /**
+     * Loads this info from its file using {@link #load()}, ignoring the
+     * specified properties, which can't hold the binary form
+     *
+     * @param props The properties that the file was read as
+     * @deprecated Use {@link #load()} instead
+     */
     @Override
+    @Deprecated
+    public void load(Properties props){
+        try{
+            this.load();
+        }
+        catch(IOException e){
+            Log.error("Couldn't load "+this.getName(), e);
+        }
+    }
+
+    /**
+     * Saves this info to its file using {@link #save()} and also stores it
+     * in the old form in the specified properties, so that the file can
+     * still be loaded if the caller writes them to it afterwards
+     *
+     * @param props The properties
+     * @deprecated Use {@link #save()} instead
+     */
+    @Override
+    @Deprecated
     public void save(Properties props){
-        for(Map.Entry<Integer, IResourceName> entry : this.reg.map.entrySet()){
-            props.setProperty(entry.getKey().toString(), entry.getValue().toString());
+        try{
+            this.save();
+        }
+        catch(IOException e){
+            Log.error("Couldn't save "+this.getName(), e);
         }
 
-        this.needsSave = false;
+        for(int i = 0; i < this.names.length; i++){
+            if(this.names[i] != null){
+                props.setProperty(String.valueOf(i), this.names[i].toString());
+            }
+        }
     }
 
+    private void loadProperties(Properties props){
+        this.clear();
+
+        for(String key : props.stringPropertyNames()){
+            this.put(Integer.parseInt(key), RockBottomAPI.createRes(props.getProperty(key)));
+        }
+    }
+
+    public void fromBuffer(ByteBuf buf){
+        this.clear();
+
+        int amount = NetUtil.readVarInt(buf);
+        int id = -1;
+        for(int i = 0; i < amount; i++){
+            id += NetUtil.readVarInt(buf)+1;
+            this.put(id, RockBottomAPI.createRes(NetUtil.readStringFromBuffer(buf)));
+        }
+    }
+
+    /**
+     * Writes the entries ordered by id, with every id stored as the
+     * distance to the previous one so that dense tables take up one byte per id
+     *
+     * @param buf The buffer
+     */
     public void toBuffer(ByteBuf buf){
-        buf.writeInt(this.reg.getSize());
+        NetUtil.writeVarInt(this.ids.size(), buf);
 
-        for(Map.Entry<Integer, IResourceName> entry : this.reg.map.entrySet()){
-            buf.writeInt(entry.getKey());
-            NetUtil.writeStringToBuffer(entry.getValue().toString(), buf);
+        int previous = -1;
+        for(int i = 0; i < this.names.length; i++){
+            if(this.names[i] != null){
+                NetUtil.writeVarInt(i-previous-1, buf);
+                NetUtil.writeStringToBuffer(this.names[i].toString(), buf);
+                previous = i;
+            }
         }
     }
 
+    public File getFile(){
+        return this.file;
+    }
+
+    /**
+     * @param manager The data manager
+     * @return The file of this info
+     * @deprecated Use {@link #getFile()} instead
+     */
     @Override
+    @Deprecated
     public File getFile(IDataManager manager){
         return this.file;
     }
 
     @Override
     public String getName(){
-        return "Name to index info "+this.reg;
+        return "Name to index info "+this.name;
     }
 }
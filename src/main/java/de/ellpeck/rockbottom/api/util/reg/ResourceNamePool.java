@@ -0,0 +1,152 @@
+/*
+ * This file ("ResourceNamePool.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.util.reg;
+
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.mod.IMod;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the {@link IResourceName}s that are created through
+ * {@link RockBottomAPI#createRes(String)} and {@link RockBottomAPI#createRes(IMod, String)}
+ * so that a name is only parsed once and every lookup of it returns the same instance
+ * <br> Because of this, names that come from the pool are usually equal by identity, which
+ * makes comparing them and looking them up in hash maps cheaper. Equality still needs to be
+ * checked using {@link Object#equals(Object)}, as names can also be created in other ways.
+ * <br> The pool stops growing once it holds {@link #MAX_SIZE} names, so that names
+ * coming from the outside, like from packets, can't fill up memory
+ */
+public final class ResourceNamePool{
+
+    public static final int MAX_SIZE = 65536;
+
+    private static final Map<String, IResourceName> COMBINED = new ConcurrentHashMap<>();
+    private static final Map<IMod, Map<String, IResourceName>> BY_MOD = new ConcurrentHashMap<>();
+    private static final Map<IResourceName, IResourceName> CANONICAL = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * @param combined The combined name
+     * @return The pooled name for the specified combined string
+     * @throws IllegalArgumentException if the specified string cannot be parsed as an {@link IResourceName}
+     */
+    public static IResourceName get(String combined){
+        IResourceName name = COMBINED.get(combined);
+        if(name != null){
+            HITS.increment();
+            return name;
+        }
+        else{
+            MISSES.increment();
+            return put(COMBINED, combined, RockBottomAPI.getModLoader().createResourceName(combined));
+        }
+    }
+
+    /**
+     * @param mod      The mod
+     * @param resource The resource
+     * @return The pooled name for the specified resource of the specified mod
+     */
+    public static IResourceName get(IMod mod, String resource){
+        Map<String, IResourceName> names = BY_MOD.get(mod);
+        if(names == null){
+            names = BY_MOD.computeIfAbsent(mod, m -> new ConcurrentHashMap<>());
+        }
+
+        IResourceName name = names.get(resource);
+        if(name != null){
+            HITS.increment();
+            return name;
+        }
+        else{
+            MISSES.increment();
+            return put(names, resource, RockBottomAPI.getModLoader().createResourceName(mod, resource));
+        }
+    }
+
+    /**
+     * Gets the pooled instance of a name that was created elsewhere, like using
+     * {@link IResourceName#addPrefix(String)}, adding it to the pool if there isn't one yet
+     *
+     * @param name The name
+     * @return The pooled instance that is equal to the name
+     */
+    public static IResourceName intern(IResourceName name){
+        IResourceName pooled = CANONICAL.get(name);
+        if(pooled != null){
+            return pooled;
+        }
+        else if(CANONICAL.size() < MAX_SIZE){
+            pooled = CANONICAL.putIfAbsent(name, name);
+            return pooled != null ? pooled : name;
+        }
+        else{
+            return name;
+        }
+    }
+
+    private static <K> IResourceName put(Map<K, IResourceName> map, K key, IResourceName name){
+        IResourceName pooled = intern(name);
+        if(map.size() < MAX_SIZE){
+            IResourceName existing = map.putIfAbsent(key, pooled);
+            if(existing != null){
+                return existing;
+            }
+        }
+        return pooled;
+    }
+
+    /**
+     * @return The amount of lookups that found a name in the pool
+     */
+    public static long getHits(){
+        return HITS.sum();
+    }
+
+    /**
+     * @return The amount of lookups that had to create a new name
+     */
+    public static long getMisses(){
+        return MISSES.sum();
+    }
+
+    /**
+     * @return The amount of distinct names in the pool
+     */
+    public static int getSize(){
+        return CANONICAL.size();
+    }
+
+    /**
+     * Empties the pool and resets its counters
+     * <br> Names that were handed out before are still valid, but new lookups return different instances
+     */
+    public static void clear(){
+        COMBINED.clear();
+        BY_MOD.clear();
+        CANONICAL.clear();
+        HITS.reset();
+        MISSES.reset();
+    }
+}
@@ -27,6 +27,7 @@ import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * The world is split up into parts with the dimensions
@@ -250,11 +251,30 @@ public interface IChunk extends IChunkOrWorld{
 
     /**
      * Saves the chunk to the given {@link DataSet}
+     * <br> The set is written to disk in the background, so arrays added to it
+     * may not be modified by the chunk afterwards, apart from grids, which are
+     * copied when they are added
      *
      * @param set The set
      */
     void save(DataSet set);
 
+    /**
+     * Takes a snapshot of the chunk that is saved into a {@link DataSet} on the
+     * thread of a {@link de.ellpeck.rockbottom.api.world.region.SaveQueue} later
+     * <br> The returned supplier may not access the chunk itself, only copies of its
+     * data that were taken when this method was called. By default, the chunk is
+     * saved right away using {@link #save(DataSet)}, so chunks should override this
+     * to only copy their grids here and build the set in the supplier.
+     *
+     * @return The snapshot
+     */
+    default Supplier<DataSet> createSaveSnapshot(){
+        DataSet set = new DataSet();
+        this.save(set);
+        return () -> set;
+    }
+
     /**
      * Updates the chunk
      * <br> This is not supposed to be used by mods
@@ -18,12 +18,16 @@
 
 package de.ellpeck.rockbottom.api.world;
 
+import de.ellpeck.rockbottom.api.RockBottomAPI;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
 import de.ellpeck.rockbottom.api.entity.Entity;
 import de.ellpeck.rockbottom.api.entity.player.AbstractEntityPlayer;
 import de.ellpeck.rockbottom.api.tile.Tile;
 import de.ellpeck.rockbottom.api.util.BoundBox;
 import de.ellpeck.rockbottom.api.util.reg.NameToIndexInfo;
 import de.ellpeck.rockbottom.api.world.gen.biome.Biome;
+import de.ellpeck.rockbottom.api.world.region.RegionStorage;
+import de.ellpeck.rockbottom.api.world.region.SaveQueue;
 import io.netty.channel.Channel;
 
 import java.util.List;
@@ -87,13 +91,17 @@ public interface IWorld extends IChunkOrWorld{
      * @param tile The tile
      * @return The id that the specified tile is saved as in the world's save files
      */
-    int getIdForTile(Tile tile);
+    default int getIdForTile(Tile tile){
+        return this.getTileRegInfo().getCache(RockBottomAPI.TILE_REGISTRY).getId(tile);
+    }
 
     /**
      * @param id The id
      * @return The tile that is saved in the world's save files using the specified id
      */
-    Tile getTileForId(int id);
+    default Tile getTileForId(int id){
+        return this.getTileRegInfo().getCache(RockBottomAPI.TILE_REGISTRY).get(id);
+    }
 
     /**
      * @return Information about which ids tiles are saved with in the world file
@@ -102,9 +110,21 @@ public interface IWorld extends IChunkOrWorld{
      */
     NameToIndexInfo getTileRegInfo();
 
-    int getIdForBiome(Biome biome);
+    /**
+     * @param biome The biome
+     * @return The id that the specified biome is saved as in the world's save files
+     */
+    default int getIdForBiome(Biome biome){
+        return this.getBiomeRegInfo().getCache(RockBottomAPI.BIOME_REGISTRY).getId(biome);
+    }
 
-    Biome getBiomeForId(int id);
+    /**
+     * @param id The id
+     * @return The biome that is saved in the world's save files using the specified id
+     */
+    default Biome getBiomeForId(int id){
+        return this.getBiomeRegInfo().getCache(RockBottomAPI.BIOME_REGISTRY).get(id);
+    }
 
     NameToIndexInfo getBiomeRegInfo();
 
@@ -113,6 +133,14 @@ public interface IWorld extends IChunkOrWorld{
      */
     WorldInfo getWorldInfo();
 
+    /**
+     * @return The codec that this world's chunks and players are compressed with
+     * when they are written to disk
+     */
+    default IDataCodec getDataCodec(){
+        return this.getWorldInfo().dataCodec;
+    }
+
     /**
      * Notifies neighboring tiles that a change or an update has occured, calling their
      * {@link Tile#onChangeAround(IWorld, int, int, TileLayer, int, int, TileLayer)} methods
@@ -178,9 +206,24 @@ public interface IWorld extends IChunkOrWorld{
 
     /**
      * Saves the specified player to disk
+     * <br> The player's data is written in the background using the {@link #getSaveQueue()},
+     * so wait for {@link SaveQueue#flush()} if it needs to be on disk right away
+     * <br> It is compressed using the {@link #getDataCodec()}
      * <br> Not supposed to be used by mods
      *
      * @param player The player
      */
     void savePlayer(AbstractEntityPlayer player);
+
+    /**
+     * @return The queue that this world's chunks and players are written to disk with
+     * in the background
+     */
+    SaveQueue getSaveQueue();
+
+    /**
+     * @return The storage that this world's chunks are saved in, which should
+     * have been created with the {@link #getDataCodec()}
+     */
+    RegionStorage getRegionStorage();
 }
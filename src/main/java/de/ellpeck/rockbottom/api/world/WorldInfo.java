@@ -18,7 +18,10 @@
 
 package de.ellpeck.rockbottom.api.world;
 
+import de.ellpeck.rockbottom.api.RockBottomAPI;
 import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.DataSetFormat;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
 import io.netty.buffer.ByteBuf;
 
 import java.io.File;
@@ -30,6 +33,10 @@ public class WorldInfo{
     public long seed;
     public int totalTimeInWorld;
     public int currentWorldTime = 3000;
+    /**
+     * The codec that the files of this world are compressed with
+     */
+    public IDataCodec dataCodec = DataSetFormat.DEFAULT_CODEC;
 
     public WorldInfo(File worldDirectory){
         this.dataFile = new File(worldDirectory, "world_info.dat");
@@ -42,6 +49,13 @@ public class WorldInfo{
         this.seed = dataSet.getLong("seed");
         this.totalTimeInWorld = dataSet.getInt("total_time");
         this.currentWorldTime = dataSet.getInt("curr_time");
+
+        if(dataSet.hasKey("data_codec")){
+            IDataCodec codec = RockBottomAPI.DATA_CODEC_REGISTRY.get(dataSet.getInt("data_codec"));
+            if(codec != null){
+                this.dataCodec = codec;
+            }
+        }
     }
 
     public void save(){
@@ -49,7 +63,8 @@ public class WorldInfo{
         dataSet.addLong("seed", this.seed);
         dataSet.addInt("total_time", this.totalTimeInWorld);
         dataSet.addInt("curr_time", this.currentWorldTime);
-        dataSet.write(this.dataFile);
+        dataSet.addInt("data_codec", RockBottomAPI.DATA_CODEC_REGISTRY.getId(this.dataCodec));
+        dataSet.write(this.dataFile, this.dataCodec);
     }
 
     public void toBuffer(ByteBuf buf){
@@ -0,0 +1,341 @@
+/*
+ * This file ("RegionFile.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.world.region;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+import org.newdawn.slick.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A file that stores the data of a square of chunks
+ * <br> The file is split into sectors of {@link #SECTOR_SIZE} bytes. The first
+ * sectors hold a table of the first sector and the length of every chunk's data,
+ * and the data itself is stored in runs of sectors after that. The file is memory
+ * mapped, so reading and writing chunks does not go through separate system calls.
+ * <br> A chunk's data is always written to free sectors first, and the table is only
+ * changed to point to them once they are on disk, so a crash while writing leaves the
+ * chunk's previous data intact.
+ * <br> Sectors that are freed when chunks are rewritten are reused, but the file never
+ * shrinks while it is open. Use {@link #compact(File)} to remove unused sectors
+ * from a file that is not open.
+ */
+public class RegionFile implements Closeable{
+
+    public static final int MAGIC = 0x52424752;
+    public static final int SECTOR_SIZE = 4096;
+    public static final int MAX_SIZE = 1024;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int ENTRY_SIZE = 8;
+    private static final int GROWTH_SECTORS = 64;
+
+    private final File file;
+    private final FileChannel channel;
+    private final int size;
+    private final int headerSectors;
+
+    private final int[] offsets;
+    private final int[] lengths;
+    private final BitSet usedSectors = new BitSet();
+
+    private MappedByteBuffer buffer;
+    private int sectorAmount;
+
+    /**
+     * Opens the region file at the specified location, creating it if it doesn't exist
+     *
+     * @param file The file
+     * @param size The amount of chunks along each side of the region. Only used when creating the file
+     * @throws IOException If the file cannot be opened or isn't a region file
+     */
+    public RegionFile(File file, int size) throws IOException{
+        if((size <= 0 || size > MAX_SIZE) && !file.exists()){
+            throw new IOException("Cannot create region file "+file+" with invalid size "+size);
+        }
+
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try{
+            boolean exists = this.channel.size() > 0;
+            if(exists){
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                this.channel.read(header, 0);
+                header.flip();
+
+                if(header.remaining() < HEADER_SIZE || header.getInt() != MAGIC){
+                    throw new IOException("File "+file+" is not a region file");
+                }
+                size = header.getInt();
+            }
+
+            if(size <= 0 || size > MAX_SIZE){
+                throw new IOException("Region file "+file+" has invalid size "+size);
+            }
+            if(exists && this.channel.size() < HEADER_SIZE+(long)size*size*ENTRY_SIZE){
+                throw new IOException("Region file "+file+" is too short for its size "+size);
+            }
+
+            this.size = size;
+            this.offsets = new int[size*size];
+            this.lengths = new int[size*size];
+            this.headerSectors = sectorsFor(HEADER_SIZE+size*size*ENTRY_SIZE);
+            this.usedSectors.set(0, this.headerSectors);
+
+            if(exists){
+                this.map(Math.max(this.headerSectors, (int)(this.channel.size()/SECTOR_SIZE)));
+
+                for(int i = 0; i < this.offsets.length; i++){
+                    int offset = this.buffer.getInt(HEADER_SIZE+i*ENTRY_SIZE);
+                    int length = this.buffer.getInt(HEADER_SIZE+i*ENTRY_SIZE+4);
+
+                    if(offset >= this.headerSectors && length > 0 && offset+sectorsFor(length) <= this.sectorAmount){
+                        this.offsets[i] = offset;
+                        this.lengths[i] = length;
+                        this.usedSectors.set(offset, offset+sectorsFor(length));
+                    }
+                    else if(offset != 0){
+                        Log.warn("Discarding chunk "+i+" of region file "+file+" because its location is invalid");
+                    }
+                }
+            }
+            else{
+                this.map(this.headerSectors);
+                this.buffer.putInt(0, MAGIC);
+                this.buffer.putInt(4, size);
+            }
+        }
+        catch(IOException e){
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The amount of chunks along each side of the region
+     */
+    public int getSize(){
+        return this.size;
+    }
+
+    public File getFile(){
+        return this.file;
+    }
+
+    public synchronized boolean hasChunk(int x, int y){
+        return this.offsets[this.index(x, y)] != 0;
+    }
+
+    /**
+     * Reads the data of the chunk at the specified coordinates inside of the region
+     *
+     * @param x The x coordinate, between 0 and {@link #getSize()}
+     * @param y The y coordinate, between 0 and {@link #getSize()}
+     * @return A copy of the data, or {@code null} if the chunk has not been saved
+     */
+    public synchronized ByteBuf read(int x, int y){
+        int index = this.index(x, y);
+        if(this.offsets[index] == 0){
+            return null;
+        }
+
+        byte[] data = new byte[this.lengths[index]];
+
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(this.offsets[index]*SECTOR_SIZE);
+        view.get(data);
+
+        return Unpooled.wrappedBuffer(data);
+    }
+
+    /**
+     * Writes the readable bytes of the specified buffer as the data of the chunk
+     * at the specified coordinates inside of the region
+     *
+     * @param x    The x coordinate, between 0 and {@link #getSize()}
+     * @param y    The y coordinate, between 0 and {@link #getSize()}
+     * @param data The data
+     * @throws IOException If the file cannot be grown
+     */
+    public synchronized void write(int x, int y, ByteBuf data) throws IOException{
+        int index = this.index(x, y);
+        int length = data.readableBytes();
+        if(length <= 0){
+            this.delete(x, y);
+            return;
+        }
+
+        int needed = sectorsFor(length);
+        int offset = this.findFreeSectors(needed);
+        this.usedSectors.set(offset, offset+needed);
+
+        if(offset+needed > this.sectorAmount){
+            this.map(Math.max(offset+needed, this.sectorAmount+GROWTH_SECTORS));
+        }
+
+        ByteBuffer view = this.buffer.duplicate();
+        view.position(offset*SECTOR_SIZE);
+        view.limit(offset*SECTOR_SIZE+length);
+        data.getBytes(data.readerIndex(), view);
+
+        //The data needs to be on disk before the table points to it
+        this.buffer.force();
+
+        int previous = this.offsets[index];
+        if(previous != 0){
+            this.usedSectors.clear(previous, previous+sectorsFor(this.lengths[index]));
+        }
+        this.setEntry(index, offset, length);
+    }
+
+    public synchronized void delete(int x, int y){
+        int index = this.index(x, y);
+        int offset = this.offsets[index];
+
+        if(offset != 0){
+            this.usedSectors.clear(offset, offset+sectorsFor(this.lengths[index]));
+            this.setEntry(index, 0, 0);
+        }
+    }
+
+    /**
+     * Forces all changes to be written to the disk
+     */
+    public synchronized void flush(){
+        this.buffer.force();
+    }
+
+    /**
+     * Writes all changes to the disk and closes the file
+     * <br> The file's mapping is released right away rather than when it is garbage
+     * collected, so that the file can be moved or opened again afterwards
+     */
+    @Override
+    public synchronized void close() throws IOException{
+        if(this.channel.isOpen()){
+            this.buffer.force();
+            unmap(this.buffer);
+            this.buffer = null;
+
+            this.channel.close();
+        }
+    }
+
+    private int index(int x, int y){
+        if(x < 0 || y < 0 || x >= this.size || y >= this.size){
+            throw new IndexOutOfBoundsException("Tried accessing chunk "+x+", "+y+" of region file "+this.file+" with size "+this.size);
+        }
+        return x*this.size+y;
+    }
+
+    private void setEntry(int index, int offset, int length){
+        this.offsets[index] = offset;
+        this.lengths[index] = length;
+
+        this.buffer.putInt(HEADER_SIZE+index*ENTRY_SIZE, offset);
+        this.buffer.putInt(HEADER_SIZE+index*ENTRY_SIZE+4, length);
+    }
+
+    private int findFreeSectors(int amount){
+        int start = this.headerSectors;
+        while(true){
+            int free = this.usedSectors.nextClearBit(start);
+            int used = this.usedSectors.nextSetBit(free);
+
+            if(used < 0 || used-free >= amount){
+                return free;
+            }
+            start = used;
+        }
+    }
+
+    private void map(int sectors) throws IOException{
+        MappedByteBuffer previous = this.buffer;
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, (long)sectors*SECTOR_SIZE);
+        this.sectorAmount = sectors;
+
+        if(previous != null){
+            previous.force();
+            unmap(previous);
+        }
+    }
+
+    private static void unmap(MappedByteBuffer buffer){
+        try{
+            PlatformDependent.freeDirectBuffer(buffer);
+        }
+        catch(Throwable e){
+            Log.warn("Couldn't release the mapping of a region file, it will be released once it is garbage collected", e);
+        }
+    }
+
+    private static int sectorsFor(int length){
+        return (length+SECTOR_SIZE-1)/SECTOR_SIZE;
+    }
+
+    /**
+     * Rewrites the specified region file so that the data of all chunks is stored
+     * in consecutive sectors and the file is no larger than it needs to be
+     * <br> The file must not be open while it is being compacted
+     *
+     * @param file The file
+     * @return The amount of bytes that were saved
+     * @throws IOException If reading or writing fails
+     */
+    public static long compact(File file) throws IOException{
+        File temp = new File(file.getPath()+".tmp");
+        long before = file.length();
+
+        try(RegionFile region = new RegionFile(file, 0)){
+            int used = region.headerSectors;
+            for(int length : region.lengths){
+                used += sectorsFor(length);
+            }
+
+            Files.deleteIfExists(temp.toPath());
+            try(RegionFile compacted = new RegionFile(temp, region.size)){
+                compacted.map(used);
+
+                for(int x = 0; x < region.size; x++){
+                    for(int y = 0; y < region.size; y++){
+                        ByteBuf data = region.read(x, y);
+                        if(data != null){
+                            compacted.write(x, y, data);
+                        }
+                    }
+                }
+            }
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return before-file.length();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * This file ("RegionStorage.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.world.region;
+
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.DataSetFormat;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
+import de.ellpeck.rockbottom.api.util.Pos2;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import io.netty.buffer.ByteBuf;
+import org.newdawn.slick.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the {@link DataSet}s of chunks in {@link RegionFile}s of a directory,
+ * grouping a square of chunks into every file based on their grid coordinates
+ * <br> A limited amount of region files is kept open, the least recently
+ * used ones are closed when more are needed. Reading and writing happens while
+ * holding the lock of the storage so that a region file can't be closed while
+ * it is in use, but encoding and decoding chunks does not.
+ */
+public class RegionStorage implements Closeable{
+
+    public static final int DEFAULT_REGION_SIZE = 16;
+    public static final String EXTENSION = ".region";
+
+    private static final int MAX_OPEN_REGIONS = 64;
+
+    private final File directory;
+    private final int regionSize;
+    private final IDataCodec codec;
+    private final Map<Pos2, RegionFile> openRegions = new LinkedHashMap<>(16, 0.75F, true);
+
+    public RegionStorage(File directory){
+        this(directory, DataSetFormat.DEFAULT_CODEC);
+    }
+
+    public RegionStorage(File directory, IDataCodec codec){
+        this(directory, DEFAULT_REGION_SIZE, codec);
+    }
+
+    public RegionStorage(File directory, int regionSize){
+        this(directory, regionSize, DataSetFormat.DEFAULT_CODEC);
+    }
+
+    /**
+     * @param directory  The directory that the region files are stored in
+     * @param regionSize The amount of chunks in every direction that one region file stores
+     * @param codec      The codec that chunks are compressed with by default, which should
+     *                   usually be the world's {@link IWorld#getDataCodec()}
+     */
+    public RegionStorage(File directory, int regionSize, IDataCodec codec){
+        this.directory = directory;
+        this.regionSize = regionSize;
+        this.codec = codec;
+    }
+
+    /**
+     * @return The codec that chunks are compressed with by default
+     */
+    public IDataCodec getCodec(){
+        return this.codec;
+    }
+
+    public synchronized boolean hasChunk(int gridX, int gridY) throws IOException{
+        RegionFile region = this.getRegion(gridX, gridY, false);
+        return region != null && region.hasChunk(Math.floorMod(gridX, this.regionSize), Math.floorMod(gridY, this.regionSize));
+    }
+
+    /**
+     * Reads the chunk at the specified grid coordinates into the specified {@link DataSet}
+     *
+     * @param gridX The grid x coordinate
+     * @param gridY The grid y coordinate
+     * @param set   The set to read into
+     * @param lazy  If nested sets should be decoded lazily
+     * @return If the chunk has been saved before
+     * @throws Exception If reading fails
+     */
+    public boolean loadChunk(int gridX, int gridY, DataSet set, boolean lazy) throws Exception{
+        ByteBuf data = this.readChunk(gridX, gridY);
+        if(data != null){
+            DataSetFormat.decode(set, data, lazy);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the encoded data of the chunk at the specified grid coordinates
+     *
+     * @param gridX The grid x coordinate
+     * @param gridY The grid y coordinate
+     * @return A copy of the data, or {@code null} if the chunk has not been saved
+     * @throws IOException If the region file cannot be opened
+     */
+    public synchronized ByteBuf readChunk(int gridX, int gridY) throws IOException{
+        RegionFile region = this.getRegion(gridX, gridY, false);
+        return region != null ? region.read(Math.floorMod(gridX, this.regionSize), Math.floorMod(gridY, this.regionSize)) : null;
+    }
+
+    /**
+     * Writes the specified {@link DataSet} as the chunk at the specified grid coordinates,
+     * compressing it with this storage's {@link #getCodec()}
+     *
+     * @param gridX The grid x coordinate
+     * @param gridY The grid y coordinate
+     * @param set   The set
+     * @throws Exception If writing fails
+     */
+    public void saveChunk(int gridX, int gridY, DataSet set) throws Exception{
+        this.saveChunk(gridX, gridY, set, this.codec);
+    }
+
+    /**
+     * Writes the specified {@link DataSet} as the chunk at the specified grid coordinates
+     *
+     * @param gridX The grid x coordinate
+     * @param gridY The grid y coordinate
+     * @param set   The set
+     * @param codec The codec to compress the set with
+     * @throws Exception If writing fails
+     */
+    public void saveChunk(int gridX, int gridY, DataSet set, IDataCodec codec) throws Exception{
+        this.saveChunk(gridX, gridY, DataSetFormat.encode(set, codec));
+    }
+
+    /**
+     * Writes the specified data, which should have been encoded using
+     * {@link DataSetFormat#encode(DataSet, IDataCodec)}, as the chunk at
+     * the specified grid coordinates
+     *
+     * @param gridX The grid x coordinate
+     * @param gridY The grid y coordinate
+     * @param data  The encoded data
+     * @throws IOException If writing fails
+     */
+    public synchronized void saveChunk(int gridX, int gridY, ByteBuf data) throws IOException{
+        RegionFile region = this.getRegion(gridX, gridY, true);
+        region.write(Math.floorMod(gridX, this.regionSize), Math.floorMod(gridY, this.regionSize), data);
+    }
+
+    public synchronized void flush(){
+        for(RegionFile region : this.openRegions.values()){
+            region.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close(){
+        for(RegionFile region : this.openRegions.values()){
+            closeRegion(region);
+        }
+        this.openRegions.clear();
+    }
+
+    /**
+     * Only call this while holding the lock of this storage and don't keep the returned
+     * region file around after releasing it, as it might be closed at any point afterwards
+     */
+    private RegionFile getRegion(int gridX, int gridY, boolean create) throws IOException{
+        Pos2 pos = new Pos2(Math.floorDiv(gridX, this.regionSize), Math.floorDiv(gridY, this.regionSize));
+
+        RegionFile region = this.openRegions.get(pos);
+        if(region == null){
+            File file = new File(this.directory, "r."+pos.getX()+"."+pos.getY()+EXTENSION);
+            if(!create && !file.exists()){
+                return null;
+            }
+
+            if(!this.directory.exists()){
+                this.directory.mkdirs();
+            }
+            region = new RegionFile(file, this.regionSize);
+            if(region.getSize() != this.regionSize){
+                closeRegion(region);
+                throw new IOException("Region file "+file+" has size "+region.getSize()+" but this storage uses size "+this.regionSize);
+            }
+
+            if(this.openRegions.size() >= MAX_OPEN_REGIONS){
+                Iterator<RegionFile> eldest = this.openRegions.values().iterator();
+                closeRegion(eldest.next());
+                eldest.remove();
+            }
+            this.openRegions.put(pos, region);
+        }
+        return region;
+    }
+
+    private static void closeRegion(RegionFile region){
+        try{
+            region.close();
+        }
+        catch(IOException e){
+            Log.error("Couldn't close region file "+region.getFile(), e);
+        }
+    }
+
+    /**
+     * Compacts all region files in the specified directories using
+     * {@link RegionFile#compact(File)}
+     * <br> Only run this while the worlds that the directories belong to are not loaded
+     *
+     * @param args The directories
+     */
+    public static void main(String[] args){
+        long saved = 0;
+
+        for(String arg : args){
+            File[] files = new File(arg).listFiles((dir, name) -> name.endsWith(EXTENSION));
+            if(files == null){
+                Log.warn("Skipping "+arg+" because it is not a directory");
+                continue;
+            }
+
+            for(File file : files){
+                try{
+                    long fileSaved = RegionFile.compact(file);
+                    Log.info("Compacted region file "+file+", saving "+fileSaved+" bytes");
+                    saved += fileSaved;
+                }
+                catch(IOException e){
+                    Log.error("Couldn't compact region file "+file, e);
+                }
+            }
+        }
+
+        Log.info("Compacted all region files, saving "+saved+" bytes in total");
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file ("SaveQueue.java") is part of the RockBottomAPI by Ellpeck.
+ * View the source code at <https://github.com/Ellpeck/RockBottomAPI>.
+ *
+ * The RockBottomAPI is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The RockBottomAPI is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with the RockBottomAPI. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package de.ellpeck.rockbottom.api.world.region;
+
+import de.ellpeck.rockbottom.api.data.set.DataSet;
+import de.ellpeck.rockbottom.api.data.set.DataSetFormat;
+import de.ellpeck.rockbottom.api.data.set.codec.IDataCodec;
+import de.ellpeck.rockbottom.api.world.IChunk;
+import de.ellpeck.rockbottom.api.world.IWorld;
+import org.newdawn.slick.util.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Encodes, compresses and writes data to disk on a background thread so that
+ * saving doesn't stall the game thread
+ * <br> The game thread only takes a snapshot of the data to save. For chunks, that is
+ * {@link IChunk#createSaveSnapshot()}, and the set is built from it in the background.
+ * For other data, it is {@link DataSet#copy()}, so the {@link DataSet}s that are passed in
+ * can be modified afterwards. Arrays stored in them are not copied however, apart from grids,
+ * which {@link DataSet#addShortGrid(String, short[], int, int)} and
+ * {@link DataSet#addByteGrid(String, byte[], int, int)} store by value.
+ * <br> Tasks are run in the order they are submitted in. If too many are pending,
+ * submitting blocks until the writer catches up.
+ */
+public class SaveQueue implements Closeable{
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final ExecutorService executor;
+    private final Semaphore capacity;
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public SaveQueue(String name){
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    public SaveQueue(String name, int capacity){
+        this.capacity = new Semaphore(capacity);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a snapshot of the specified chunk on the calling thread and writes it
+     * to the world's {@link IWorld#getRegionStorage()} in the background, compressing
+     * it with the world's {@link IWorld#getDataCodec()}
+     *
+     * @param world The world that the chunk belongs to
+     * @param chunk The chunk
+     * @return A future that completes once the chunk is on disk
+     */
+    public CompletableFuture<Void> saveChunk(IWorld world, IChunk chunk){
+        return this.saveChunk(world.getRegionStorage(), chunk, world.getDataCodec());
+    }
+
+    /**
+     * Takes a snapshot of the specified chunk on the calling thread and writes it
+     * to the specified storage in the background, compressing it with the storage's
+     * {@link RegionStorage#getCodec()}
+     *
+     * @param storage The storage to write to
+     * @param chunk   The chunk
+     * @return A future that completes once the chunk is on disk
+     */
+    public CompletableFuture<Void> saveChunk(RegionStorage storage, IChunk chunk){
+        return this.saveChunk(storage, chunk, storage.getCodec());
+    }
+
+    /**
+     * Takes a snapshot of the specified chunk on the calling thread
+     * and writes it to the specified storage in the background
+     *
+     * @param storage The storage to write to
+     * @param chunk   The chunk
+     * @param codec   The codec to compress the chunk with
+     * @return A future that completes once the chunk is on disk
+     */
+    public CompletableFuture<Void> saveChunk(RegionStorage storage, IChunk chunk, IDataCodec codec){
+        Supplier<DataSet> snapshot = chunk.createSaveSnapshot();
+
+        int gridX = chunk.getGridX();
+        int gridY = chunk.getGridY();
+        return this.submit(() -> storage.saveChunk(gridX, gridY, snapshot.get(), codec));
+    }
+
+    /**
+     * Writes the specified {@link DataSet} to the specified file in the background,
+     * compressing it with the world's {@link IWorld#getDataCodec()}
+     * <br> This is what player data should be saved with
+     *
+     * @param world The world that the data belongs to
+     * @param set   The set, which is copied on the calling thread
+     * @param file  The file
+     * @return A future that completes once the set is on disk
+     */
+    public CompletableFuture<Void> saveSet(IWorld world, DataSet set, File file){
+        return this.saveSet(set, file, world.getDataCodec());
+    }
+
+    /**
+     * Writes the specified {@link DataSet} to the specified file in the background
+     *
+     * @param set   The set, which is copied on the calling thread
+     * @param file  The file
+     * @param codec The codec to compress the set with
+     * @return A future that completes once the set is on disk
+     */
+    public CompletableFuture<Void> saveSet(DataSet set, File file, IDataCodec codec){
+        DataSet snapshot = set.copy();
+        return this.submit(() -> DataSetFormat.write(snapshot, file, codec));
+    }
+
+    /**
+     * Runs the specified task in the background after all the tasks that
+     * have been submitted before it, blocking if too many tasks are pending
+     *
+     * @param task The task
+     * @return A future that completes once the task has run
+     */
+    public CompletableFuture<Void> submit(ISaveTask task){
+        if(this.closed){
+            throw new IllegalStateException("Cannot submit a task to a closed save queue");
+        }
+
+        this.capacity.acquireUninterruptibly();
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.pending.add(future);
+
+        try{
+            this.executor.execute(() -> {
+                try{
+                    task.run();
+                    future.complete(null);
+                }
+                catch(Throwable e){
+                    Log.error("Exception running save task in the background", e);
+                    future.completeExceptionally(e);
+                }
+                finally{
+                    this.pending.remove(future);
+                    this.capacity.release();
+                }
+            });
+        }
+        catch(RejectedExecutionException e){
+            //The queue was closed after the check above, so the task will never run
+            Log.warn("Couldn't submit save task because the save queue was closed", e);
+
+            this.pending.remove(future);
+            this.capacity.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @return A future that completes once all of the currently pending tasks have run
+     */
+    public CompletableFuture<Void> flush(){
+        return CompletableFuture.allOf(this.pending.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * @return The amount of tasks that haven't run yet
+     */
+    public int getPendingAmount(){
+        return this.pending.size();
+    }
+
+    /**
+     * Runs all pending tasks and stops the background thread, blocking until it is done
+     * <br> This needs to be called when the world is exited so that no data is lost
+     */
+    @Override
+    public void close(){
+        this.closed = true;
+        this.executor.shutdown();
+
+        boolean interrupted = false;
+        while(!this.executor.isTerminated()){
+            try{
+                this.executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            catch(InterruptedException e){
+                interrupted = true;
+            }
+        }
+
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    public interface ISaveTask{
+
+        void run() throws Exception;
+    }
+}